@@ -0,0 +1,456 @@
+/************************************************************************
+ * ------------
+ * Description:
+ * ------------
+ *  Copyright (c) 2003-2006, 2009 Arabeyes, Thamer Mahmoud
+ *  Copyright (c) 2015, Djalel Chefrour, porting to Java.
+ *
+ *  A full featured Muslim Prayer Times calculator
+ *
+ *  Most of the astronomical values and formulas used in this file are based
+ *  upon a subset of the VSOP87 planetary theory developed by Jean Meeus. Page
+ *  and formula numbers in-line below are references to his book: Astronomical
+ *  Algorithms. Willmann-Bell, second edition, 1998.
+ *
+ * (www.arabeyes.org - under LGPL license - see COPYING file)
+ ************************************************************************/
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.arabeyes.prayertime.*;
+
+/* Writes the prayer calendars of a list of locations.
+
+   $ javac BatchPrayerTime.java
+   $ java BatchPrayerTime [-p parallelism] [-c chunkSize] [-o outDir]
+                          [-y year | -from yyyy-mm-dd -to yyyy-mm-dd] [-x]
+                          locations.csv
+
+   Each line of the location file is "name,lat,lon,elevation,zone,method":
+   the zone is a time zone id (e.g. Africa/Algiers, with its daylight saving
+   time) or a GMT difference in hours, and the method a number or a name of
+   Method (e.g. 5 or MUSLIM_LEAGUE). Empty lines and lines starting with '#'
+   are skipped. Names cannot hold commas.
+
+   One CSV file is written per location in "outDir" (default "calendars"),
+   with a line per day: the date and the six prayer times, followed by
+   Imsaak, midnight and the last third of the night with -x (see
+   DaySchedule). A '*' marks the times computed through an extreme latitude
+   method and "--:--" the invalid ones. The days are those of "year"
+   (default: the current one), or from "-from" to "-to" (default: the end of
+   the year of -from); -y and -from cannot be used together.
+
+   The locations are split in chunks of "chunkSize" (default 16) computed
+   on a fork/join pool of "parallelism" threads (default: the number of
+   processors). Each thread formats its files in its own direct buffer and
+   writes them through a file channel. The report gives the throughput, the
+   time spent in each stage (summed over the threads for the parallel ones),
+   an upper bound of the peak heap and the memory of the direct buffers. */
+public class BatchPrayerTime {
+    private static final String[] METHOD_NAMES = { "NONE", "EGYPT_SURVEY",
+        "KARACHI_SHAF", "KARACHI_HANAF", "NORTH_AMERICA", "MUSLIM_LEAGUE",
+        "UMM_ALQURRA", "FIXED_ISHAA", "EGYPT_NEW" };
+    /* Written times (indexes in DaySchedule) and their headers. The next
+       day's Fajr and Imsaak are in the next line. */
+    private static final int[] COLUMNS = { 0, 1, 2, 3, 4, 5 };
+    private static final int[] EXTENDED_COLUMNS = { 0, 1, 2, 3, 4, 5,
+        DaySchedule.IMSAAK, DaySchedule.MIDNIGHT, DaySchedule.LAST_THIRD };
+    private static final String[] HEADERS = { "fajr", "shurooq", "zuhr", "assr",
+        "maghrib", "ishaa", "imsaak", "midnight", "lastThird" };
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_LINE = 160;
+    private static final int MAX_PARALLELISM = 32767;   /* of ForkJoinPool */
+    private static final int MAX_DAYS = 1000000;
+
+    /* One line of the location file */
+    static final class Site {
+        final int index;
+        final String name;
+        final PTLocation loc;
+        final ZoneId zoneId;        /* null for a fixed GMT difference */
+        final Method conf;
+
+        Site(int index, String name, PTLocation loc, ZoneId zoneId, Method conf)
+        {
+            this.index = index;
+            this.name = name;
+            this.loc = loc;
+            this.zoneId = zoneId;
+            this.conf = conf;
+        }
+    }
+
+    private static LocalDate from, to;
+    private static int nbDays;
+    private static boolean extended;
+    private static Path outDir = Paths.get("calendars");
+
+    private static final ThreadLocal<Prayer> prayer =
+            ThreadLocal.withInitial(Prayer::new);
+    private static final ThreadLocal<ByteBuffer> buffer =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+    private static final LongAdder computeNs = new LongAdder();
+    private static final LongAdder formatNs = new LongAdder();
+    private static final LongAdder writeNs = new LongAdder();
+    private static final LongAdder bytes = new LongAdder();
+    private static final AtomicInteger nbFailed = new AtomicInteger();
+
+    public static void main(String[] args) throws IOException
+    {
+        int i, parallelism = Runtime.getRuntime().availableProcessors();
+        int chunkSize = 16, year = LocalDate.now().getYear();
+        boolean hasYear = false;
+        long start, readNs, runNs;
+        String fileName = null;
+        List<Site> sites;
+        ForkJoinPool pool;
+
+        try {
+            for (i = 0; i < args.length; i++) {
+                if (args[i].equals("-p"))
+                    parallelism = Integer.parseInt(args[++i]);
+                else if (args[i].equals("-c"))
+                    chunkSize = Integer.parseInt(args[++i]);
+                else if (args[i].equals("-o"))
+                    outDir = Paths.get(args[++i]);
+                else if (args[i].equals("-y")) {
+                    year = Integer.parseInt(args[++i]);
+                    hasYear = true;
+                }
+                else if (args[i].equals("-from"))
+                    from = LocalDate.parse(args[++i]);
+                else if (args[i].equals("-to"))
+                    to = LocalDate.parse(args[++i]);
+                else if (args[i].equals("-x"))
+                    extended = true;
+                else if (args[i].startsWith("-") || fileName != null)
+                    usage("unknown argument " + args[i]);
+                else fileName = args[i];
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            usage("missing value of " + args[args.length - 1]);
+        } catch (NumberFormatException | DateTimeException e) {
+            usage(e.getMessage());
+        }
+        if (fileName == null)
+            usage(null);
+        if (parallelism < 1 || parallelism > MAX_PARALLELISM)
+            usage("parallelism must be 1 to " + MAX_PARALLELISM);
+        if (chunkSize < 1)
+            usage("chunk size must be 1 or more");
+        if (hasYear && from != null)
+            usage("-y and -from cannot be used together");
+        if (from == null)
+            from = LocalDate.of(year, 1, 1);
+        if (to == null)
+            to = from.withDayOfYear(from.lengthOfYear());
+        if (to.isBefore(from))
+            usage("-to " + to + " is before -from " + from);
+        if (to.toEpochDay() - from.toEpochDay() + 1 > MAX_DAYS)
+            usage("more than " + MAX_DAYS + " days");
+        nbDays = (int)(to.toEpochDay() - from.toEpochDay() + 1);
+
+        start = System.nanoTime();
+        sites = readSites(Paths.get(fileName));
+        readNs = System.nanoTime() - start;
+        Files.createDirectories(outDir);
+
+        start = System.nanoTime();
+        pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new Chunk(sites, 0, sites.size(), chunkSize));
+        } finally {
+            pool.shutdown();
+        }
+        runNs = System.nanoTime() - start;
+
+        System.out.printf("locations   %d (%d failed), %d days from %s, "
+                + "%d threads, chunks of %d\n", sites.size(), nbFailed.get(),
+                nbDays, from, parallelism, chunkSize);
+        System.out.printf("throughput  %.1f locations/s, %.0f days/s, %.1f MB/s\n",
+                sites.size() / (runNs / 1e9), (double)sites.size() * nbDays / (runNs / 1e9),
+                bytes.sum() / 1e6 / (runNs / 1e9));
+        System.out.printf("wall        %.3f s (read %.3f s, calendars %.3f s)\n",
+                (readNs + runNs) / 1e9, readNs / 1e9, runNs / 1e9);
+        System.out.printf("stages      compute %.3f s, format %.3f s, write %.3f s "
+                + "(thread time)\n", computeNs.sum() / 1e9, formatNs.sum() / 1e9,
+                writeNs.sum() / 1e9);
+        System.out.printf("memory      peak heap below %.1f MB, direct buffers "
+                + "%.1f MB, %.1f MB written\n", getPeakHeap() / 1e6,
+                getDirectMemory() / 1e6, bytes.sum() / 1e6);
+    }
+
+    private static void usage(String error)
+    {
+        if (error != null)
+            System.err.println("BatchPrayerTime: " + error);
+        System.err.println("usage: java BatchPrayerTime [-p parallelism] "
+                + "[-c chunkSize] [-o outDir] [-y year | -from yyyy-mm-dd "
+                + "-to yyyy-mm-dd] [-x] locations.csv");
+        System.exit(1);
+    }
+
+    /* Computes and writes the calendars of sites[lo] to sites[hi - 1] */
+    static final class Chunk extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Site> sites;
+        private final int lo, hi, chunkSize;
+
+        Chunk(List<Site> sites, int lo, int hi, int chunkSize)
+        {
+            this.sites = sites;
+            this.lo = lo;
+            this.hi = hi;
+            this.chunkSize = chunkSize;
+        }
+
+        protected void compute()
+        {
+            int i, mid;
+
+            if (hi - lo > chunkSize) {
+                mid = (lo + hi) >>> 1;
+                invokeAll(new Chunk(sites, lo, mid, chunkSize),
+                          new Chunk(sites, mid, hi, chunkSize));
+                return;
+            }
+
+            for (i = lo; i < hi; i++) {
+                try {
+                    writeCalendar(sites.get(i));
+                } catch (IOException | RuntimeException e) {
+                    nbFailed.incrementAndGet();
+                    System.err.println(sites.get(i).name + ": " + e);
+                }
+            }
+        }
+    }
+
+    private static void writeCalendar(Site site) throws IOException
+    {
+        int i, k, nbTimes = extended ? DaySchedule.NB_TIMES : Prayer.NB_PRAYERS;
+        long t0, t1, day;
+        int[] times, schedule;
+        int[] columns = extended ? EXTENDED_COLUMNS : COLUMNS;
+        ByteBuffer buf = buffer.get();
+        PTLocation loc;
+        ZoneYear offsets = null;
+        Prayer p = prayer.get();
+        Path path = outDir.resolve(String.format("%06d-%s.csv", site.index,
+                site.name.replaceAll("[^A-Za-z0-9_.-]", "_")));
+
+        /* Compute */
+        t0 = System.nanoTime();
+        if (!extended) {
+            times = p.getPackedTimesForRange(site.loc, site.conf, site.zoneId,
+                    from, nbDays).times;
+        } else {
+            times = new int[nbDays * nbTimes];
+            loc = new PTLocation(site.loc);
+            schedule = new int[nbTimes];
+            for (i = 0; i < nbDays; i++) {
+                day = from.toEpochDay() + i;
+                if (site.zoneId != null) {
+                    if (offsets == null || !offsets.contains(day))
+                        offsets = new ZoneYear(site.zoneId,
+                                LocalDate.ofEpochDay(day).getYear());
+                    loc.gmtDiff = offsets.getGmtDiff(day);
+                    loc.dst = offsets.getDst(day);
+                }
+                p.getDaySchedule(loc, site.conf, day, schedule);
+                System.arraycopy(schedule, 0, times, i * nbTimes, nbTimes);
+            }
+        }
+        t1 = System.nanoTime();
+        computeNs.add(t1 - t0);
+
+        /* Format and write */
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            t0 = System.nanoTime();
+            writeNs.add(t0 - t1);
+            buf.clear();
+            putAscii(buf, "date");
+            for (k = 0; k < columns.length; k++) {
+                buf.put((byte)',');
+                putAscii(buf, HEADERS[k]);
+            }
+            buf.put((byte)'\n');
+
+            for (i = 0; i < nbDays; i++) {
+                if (buf.remaining() < MAX_LINE)
+                    t0 = flush(channel, buf, t0);
+                putDate(buf, from.plusDays(i));
+                for (k = 0; k < columns.length; k++) {
+                    buf.put((byte)',');
+                    putTime(buf, times[i * nbTimes + columns[k]],
+                            site.conf.round == 0);
+                }
+                buf.put((byte)'\n');
+            }
+            flush(channel, buf, t0);
+        }
+    }
+
+    /* Writes the content of "buf" and returns the current time, after
+       adding the time since "t0" to the format stage */
+    private static long flush(FileChannel channel, ByteBuffer buf, long t0)
+            throws IOException
+    {
+        long t1 = System.nanoTime(), t2;
+
+        formatNs.add(t1 - t0);
+        buf.flip();
+        bytes.add(buf.remaining());
+        while (buf.hasRemaining())
+            channel.write(buf);
+        buf.clear();
+        t2 = System.nanoTime();
+        writeNs.add(t2 - t1);
+        return t2;
+    }
+
+    private static void putAscii(ByteBuffer buf, String s)
+    {
+        buf.put(s.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void putDate(ByteBuffer buf, LocalDate date)
+    {
+        putDigits(buf, date.getYear(), 4);
+        buf.put((byte)'-');
+        putDigits(buf, date.getMonthValue(), 2);
+        buf.put((byte)'-');
+        putDigits(buf, date.getDayOfMonth(), 2);
+    }
+
+    private static void putTime(ByteBuffer buf, int t, boolean seconds)
+    {
+        int s = PackedTime.getSeconds(t);
+
+        if (!PackedTime.isValid(t)) {
+            putAscii(buf, seconds ? "--:--:--" : "--:--");
+            return;
+        }
+        putDigits(buf, s / 3600, 2);
+        buf.put((byte)':');
+        putDigits(buf, s / 60 % 60, 2);
+        if (seconds) {
+            buf.put((byte)':');
+            putDigits(buf, s % 60, 2);
+        }
+        if (PackedTime.isExtreme(t))
+            buf.put((byte)'*');
+    }
+
+    private static void putDigits(ByteBuffer buf, int v, int width)
+    {
+        int i, pos = buf.position();
+
+        for (i = width - 1; i >= 0; i--) {
+            buf.put(pos + i, (byte)('0' + v % 10));
+            v /= 10;
+        }
+        buf.position(pos + width);
+    }
+
+    private static List<Site> readSites(Path path) throws IOException
+    {
+        int n = 0;
+        String line;
+        String[] f;
+        List<Site> sites = new ArrayList<Site>();
+
+        try (BufferedReader in = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            while ((line = in.readLine()) != null) {
+                n++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#"))
+                    continue;
+                f = line.split(",");
+                try {
+                    if (f.length != 6)
+                        throw new IllegalArgumentException("6 fields expected");
+                    sites.add(getSite(sites.size(), f));
+                } catch (IllegalArgumentException | DateTimeException e) {
+                    System.err.println(path + ":" + n + ": skipped (" + e.getMessage() + ")");
+                }
+            }
+        }
+        return sites;
+    }
+
+    private static Site getSite(int index, String[] f)
+    {
+        int i, method = -1;
+        double gmt = 0;
+        ZoneId zoneId = null;
+        String zone = f[4].trim(), m = f[5].trim();
+        Method conf = new Method();
+
+        try {
+            gmt = Double.parseDouble(zone);
+        } catch (NumberFormatException e) {
+            zoneId = ZoneId.of(zone);
+        }
+
+        for (i = 0; i < METHOD_NAMES.length; i++)
+            if (METHOD_NAMES[i].equalsIgnoreCase(m))
+                method = i;
+        if (method < 0)
+            method = Integer.parseInt(m);
+        if (method < 0 || method >= METHOD_NAMES.length)
+            throw new IllegalArgumentException("unknown method " + m);
+        conf.setMethod(method);
+
+        return new Site(index, f[0].trim(), new PTLocation(
+                Double.parseDouble(f[1].trim()), Double.parseDouble(f[2].trim()),
+                gmt, 0, Double.parseDouble(f[3].trim()), 1010, 10), zoneId, conf);
+    }
+
+    /* Sum of the peak usages of the heap memory pools: an upper bound of the
+       peak of the heap, as the pools do not all peak at the same time */
+    private static long getPeakHeap()
+    {
+        long peak = 0;
+
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+            if (pool.getType() == MemoryType.HEAP)
+                peak += pool.getPeakUsage().getUsed();
+        return peak;
+    }
+
+    /* Memory of the direct buffers (one per worker thread), not freed yet */
+    private static long getDirectMemory()
+    {
+        long used = 0;
+
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(
+                    BufferPoolMXBean.class))
+            if (pool.getName().equals("direct"))
+                used += pool.getMemoryUsed();
+        return used;
+    }
+}
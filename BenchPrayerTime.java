@@ -0,0 +1,1074 @@
+/************************************************************************
+ * ------------
+ * Description:
+ * ------------
+ *  Copyright (c) 2003-2006, 2009 Arabeyes, Thamer Mahmoud
+ *  Copyright (c) 2015, Djalel Chefrour, porting to Java.
+ *
+ *  A full featured Muslim Prayer Times calculator
+ *
+ *  Most of the astronomical values and formulas used in this file are based
+ *  upon a subset of the VSOP87 planetary theory developed by Jean Meeus. Page
+ *  and formula numbers in-line below are references to his book: Astronomical
+ *  Algorithms. Willmann-Bell, second edition, 1998.
+ *
+ * (www.arabeyes.org - under LGPL license - see COPYING file)
+ ************************************************************************/
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Pattern;
+
+import org.arabeyes.prayertime.*;
+
+/* Micro benchmarks of the astronomy and prayer hot paths.
+
+   $ javac BenchPrayerTime.java
+   $ java BenchPrayerTime [-w warmupMs] [-m measureMs] [-l locationSet] [regex]
+
+   Each benchmark is warmed up then measured for a fixed time, and reports the
+   time per operation, the bytes allocated per operation and the number of
+   garbage collections during the measure. Location sets are "low" (below
+   40 degrees), "mid" (40-55), "high" (55-70) and "all" (default).
+
+   The "alloc.*" checks exit with status 1 when a call that must not
+   allocate does (see benchNoAllocation). */
+public class BenchPrayerTime {
+
+    interface Bench {
+        /* Runs operation "i" and returns something that depends on it */
+        double run(int i);
+    }
+
+    private static final double[][] LOW = {
+        {21.4225, 39.8262, 3, 277},     /* Makkah */
+        {36.28639, 7.95111, 1, 697},    /* Souk Ahras */
+        {-6.2088, 106.8456, 7, 8},      /* Jakarta */
+        {33.8869, 9.5375, 1, 0},        /* Tunisia */
+    };
+    private static final double[][] MID = {
+        {51.5074, -0.1278, 0, 11},      /* London */
+        {48.8566, 2.3522, 1, 35},       /* Paris */
+        {40.7128, -74.0060, -5, 10},    /* New York */
+        {-45.8788, 170.5028, 12, 0},    /* Dunedin */
+    };
+    private static final double[][] HIGH = {
+        {59.9139, 10.7522, 1, 23},      /* Oslo */
+        {64.1466, -21.9426, 0, 0},      /* Reykjavik */
+        {68.0, 20.0, 1, 300},           /* Kiruna area */
+        {69.6492, 18.9553, 1, 10},      /* Tromso */
+    };
+
+    private static final int NB_DATES = 365;
+
+    private static long warmupMs = 1000;
+    private static long measureMs = 2000;
+    private static Pattern filter = Pattern.compile(".*");
+    private static volatile double sink;
+    private static int nbFailed;       /* checks failed (see benchNoAllocation) */
+
+    private static PTLocation[] locs;
+    private static Date[] dates;
+    private static Date[] juneDates;
+
+    public static void main(String[] args)
+    {
+        int i;
+        String set = "all";
+
+        for (i = 0; i < args.length; i++) {
+            if (args[i].equals("-w"))
+                warmupMs = Long.parseLong(args[++i]);
+            else if (args[i].equals("-m"))
+                measureMs = Long.parseLong(args[++i]);
+            else if (args[i].equals("-l"))
+                set = args[++i];
+            else filter = Pattern.compile(args[i]);
+        }
+
+        locs = getLocations(set);
+        dates = getDates(2015, 0, 1, NB_DATES);
+        juneDates = getDates(2015, 5, 1, 30);
+
+        System.out.println("series evaluator: " + AstroDay.getSeriesEvaluator());
+        System.out.printf("%-36s %12s %12s %10s %6s\n",
+                "benchmark", "ns/op", "ops/s", "B/op", "gc");
+
+        benchAstronomy();
+        benchDates();
+        benchPrayers();
+        benchExtended();
+        benchYear();
+        benchBulk();
+        benchStepping();
+        benchPrecision();
+        benchStore();
+        benchCalendarFile();
+        benchStream();
+        benchNextPrayer();
+        benchScheduler();
+        benchResultCache();
+        benchGrid();
+        benchPreparedLocation();
+        benchDaySchedule();
+        benchNoAllocation();
+
+        if (nbFailed > 0) {
+            System.err.println(nbFailed + " check(s) failed");
+            System.exit(1);
+        }
+    }
+
+    private static void benchAstronomy()
+    {
+        final AstroDay astroDay = new AstroDay();
+        final AstroValues astro = new AstroValues();
+        final AstroValues topAstro = new AstroValues();
+        final PTLocation loc = locs[0];
+        final double jd = AstroDay.getJulianDay(dates[0], loc.gmtDiff);
+
+        bench("astro.computeAstroDay", new Bench() {
+            public double run(int i) {
+                astroDay.computeAstroDay(jd + (i % 36500), astro, 0);
+                return astro.ra[0];
+            }
+        });
+
+        /* Each call is one day after the previous one */
+        bench("astro.valuesByDay.shiftForward", new Bench() {
+            public double run(int i) {
+                astroDay.getAstroValuesByDay(jd + i, loc, astro, topAstro);
+                return topAstro.ra[1];
+            }
+        });
+
+        /* Each call is one day before the previous one */
+        bench("astro.valuesByDay.shiftBack", new Bench() {
+            public double run(int i) {
+                astroDay.getAstroValuesByDay(jd - i, loc, astro, topAstro);
+                return topAstro.ra[1];
+            }
+        });
+
+        /* Days are 10 days apart so the cache is never used */
+        bench("astro.valuesByDay.miss", new Bench() {
+            public double run(int i) {
+                astroDay.getAstroValuesByDay(jd + 10 * i, loc, astro, topAstro);
+                return topAstro.ra[1];
+            }
+        });
+    }
+
+    private static void benchDates()
+    {
+        int i;
+        final LocalDate[] localDates = new LocalDate[NB_DATES];
+        final long[] epochDays = new long[NB_DATES];
+        final Prayer prayer = new Prayer();
+        final Method conf = getMethod(Method.MUSLIM_LEAGUE, 5);
+        final int[] times = new int[Prayer.NB_PRAYERS];
+
+        for (i = 0; i < NB_DATES; i++) {
+            localDates[i] = LocalDate.of(2015, 1, 1).plusDays(i);
+            epochDays[i] = localDates[i].toEpochDay();
+        }
+
+        /* As done before the epoch day arithmetic: one calendar per call */
+        bench("date.julianDay.calendar", new Bench() {
+            public double run(int i) {
+                GregorianCalendar cal = new GregorianCalendar();
+                cal.setTime(dates[i % NB_DATES]);
+                return AstroDay.getJulianDay(cal.get(Calendar.YEAR),
+                        cal.get(Calendar.MONTH) + 1, cal.get(Calendar.DATE), 1);
+            }
+        });
+
+        bench("date.julianDay.date", new Bench() {
+            public double run(int i) {
+                return AstroDay.getJulianDay(dates[i % NB_DATES], 1);
+            }
+        });
+
+        bench("date.julianDay.localDate", new Bench() {
+            public double run(int i) {
+                return AstroDay.getJulianDay(localDates[i % NB_DATES], 1);
+            }
+        });
+
+        bench("date.julianDay.epochDay", new Bench() {
+            public double run(int i) {
+                return AstroDay.getJulianDay(epochDays[i % NB_DATES], 1);
+            }
+        });
+
+        /* Same days as prayer.intArray */
+        bench("date.intArray.localDate", new Bench() {
+            public double run(int i) {
+                return prayer.getPrayerTimes(locs[i % locs.length], conf,
+                        localDates[i % NB_DATES], times) + times[0];
+            }
+        });
+
+        bench("date.intArray.epochDay", new Bench() {
+            public double run(int i) {
+                return prayer.getPrayerTimes(locs[i % locs.length], conf,
+                        epochDays[i % NB_DATES], times) + times[0];
+            }
+        });
+    }
+
+    private static void benchPrayers()
+    {
+        int m, ex;
+
+        for (m = Method.EGYPT_SURVEY; m <= Method.EGYPT_NEW; m++)
+            benchPrayerTimes("prayer.method." + m, m, 5, dates, locs);
+
+        for (ex = 0; ex <= 14; ex++)
+            benchPrayerTimes("prayer.extreme." + ex, Method.MUSLIM_LEAGUE, ex,
+                    dates, locs);
+
+        /* Nearest good day worst case: high latitudes in June */
+        for (ex = 4; ex <= 5; ex++)
+            benchPrayerTimes("prayer.highLatJune.extreme." + ex,
+                    Method.MUSLIM_LEAGUE, ex, juneDates, toLocations(HIGH));
+
+        final Prayer prayer = new Prayer();
+        final Method conf = getMethod(Method.MUSLIM_LEAGUE, 5);
+        final int[] times = new int[Prayer.NB_PRAYERS];
+        bench("prayer.intArray", new Bench() {
+            public double run(int i) {
+                return prayer.getPrayerTimes(locs[i % locs.length], conf,
+                        dates[i % NB_DATES], times) + times[0];
+            }
+        });
+    }
+
+    private static void benchExtended()
+    {
+        final Prayer prayer = new Prayer();
+        final Method conf = getMethod(Method.MUSLIM_LEAGUE, 5);
+
+        bench("prayer.imsaak", new Bench() {
+            public double run(int i) {
+                return prayer.getImsaak(locs[i % locs.length], conf,
+                        dates[i % NB_DATES]).minute;
+            }
+        });
+
+        bench("prayer.nextDayFajr", new Bench() {
+            public double run(int i) {
+                return prayer.getNextDayFajr(locs[i % locs.length], conf,
+                        dates[i % NB_DATES]).minute;
+            }
+        });
+
+        bench("prayer.nextDayImsaak", new Bench() {
+            public double run(int i) {
+                return prayer.getNextDayImsaak(locs[i % locs.length], conf,
+                        dates[i % NB_DATES]).minute;
+            }
+        });
+    }
+
+    private static void benchYear()
+    {
+        final Method conf = getMethod(Method.MUSLIM_LEAGUE, 5);
+
+        /* One operation is a full year for one location */
+        bench("year.dayLoop", new Bench() {
+            public double run(int i) {
+                int d;
+                double sum = 0;
+                Prayer prayer = new Prayer();
+                PTLocation loc = locs[i % locs.length];
+                for (d = 0; d < NB_DATES; d++)
+                    sum += prayer.getPrayerTimes(loc, conf, dates[d])[0].minute;
+                return sum;
+            }
+        });
+
+        bench("year.range", new Bench() {
+            public double run(int i) {
+                return new Prayer().getPrayerTimesForRange(locs[i % locs.length],
+                        conf, dates[0], NB_DATES).minute[0][NB_DATES - 1];
+            }
+        });
+
+        /* Same year in a time zone with daylight saving time, looking up the
+           zone's rules for each day or resolving them once for the year */
+        final ZoneId zone = ZoneId.of("Europe/Paris");
+        final LocalDate start = LocalDate.of(2015, 1, 1);
+        bench("year.zone.dayLoop", new Bench() {
+            public double run(int i) {
+                int d;
+                double sum = 0;
+                int[] times = new int[Prayer.NB_PRAYERS];
+                Prayer prayer = new Prayer();
+                PTLocation loc = new PTLocation(locs[i % locs.length]);
+                for (d = 0; d < NB_DATES; d++) {
+                    Instant noon = start.plusDays(d).atTime(12, 0).atZone(zone).toInstant();
+                    ZoneRules rules = zone.getRules();
+                    loc.gmtDiff = rules.getStandardOffset(noon).getTotalSeconds() / 3600.0;
+                    loc.dst = (int)rules.getDaylightSavings(noon).toHours();
+                    sum += prayer.getPrayerTimes(loc, conf, start.plusDays(d), times);
+                }
+                return sum + times[0];
+            }
+        });
+
+        bench("year.zone.range", new Bench() {
+            public double run(int i) {
+                return new Prayer().getPrayerTimesForRange(locs[i % locs.length],
+                        conf, zone, start, NB_DATES).minute[0][NB_DATES - 1];
+            }
+        });
+
+        bench("year.packed.range", new Bench() {
+            public double run(int i) {
+                return new Prayer().getPackedTimesForRange(locs[i % locs.length],
+                        conf, start, NB_DATES).getMinute(0, NB_DATES - 1);
+            }
+        });
+
+        /* Memory of one year of times kept as objects or packed */
+        if (filter.matcher("year.memory").find()) {
+            int d, p;
+            long bytes;
+            PackedTimeTable packed = new Prayer().getPackedTimesForRange(locs[0],
+                    conf, start, NB_DATES);
+            PrayerTime[][] days = new PrayerTime[NB_DATES][];
+
+            bytes = getAllocatedBytes();
+            for (d = 0; d < NB_DATES; d++) {
+                days[d] = new PrayerTime[Prayer.NB_PRAYERS];
+                for (p = 0; p < Prayer.NB_PRAYERS; p++)
+                    days[d][p] = packed.getPrayerTime(p, d);
+            }
+            System.out.printf("%-36s %d bytes\n", "year.memory.prayerTime",
+                    getAllocatedBytes() - bytes);
+            bytes = getAllocatedBytes();
+            sink = packed.toPrayerTimeTable().minute[0][0];
+            System.out.printf("%-36s %d bytes\n", "year.memory.prayerTimeTable",
+                    getAllocatedBytes() - bytes);
+            bytes = getAllocatedBytes();
+            sink = new PackedTimeTable(NB_DATES).nbDays + days.length;
+            System.out.printf("%-36s %d bytes\n", "year.memory.packed",
+                    getAllocatedBytes() - bytes);
+        }
+
+        bench("year.zone.resolve", new Bench() {
+            public double run(int i) {
+                return new ZoneYear(zone, 2015 + i % 10).getNbDays();
+            }
+        });
+    }
+
+    private static void benchBulk()
+    {
+        int i, p;
+        final int n = 10000;
+        final double[] lat = new double[n], lon = new double[n];
+        final double[] seaLevel = new double[n], gmtDiff = new double[n];
+        final int[][] times = new int[Prayer.NB_PRAYERS][n];
+        final int[] extreme = new int[n];
+        final Method conf = getMethod(Method.MUSLIM_LEAGUE, 5);
+
+        /* A grid between 60S and 60N, in the time zone of the longitude */
+        for (i = 0; i < n; i++) {
+            lat[i] = -60 + 120.0 * (i / 100) / 99;
+            lon[i] = -180 + 360.0 * (i % 100) / 100;
+            gmtDiff[i] = Math.round(lon[i] / 15);
+        }
+
+        /* One operation is one location, the per location loop as reference */
+        bench("bulk.10k.loop", new Bench() {
+            public double run(int i) {
+                Prayer prayer = new Prayer();
+                PTLocation loc = new PTLocation(0, 0, 0, 0, 0, 1010, 10);
+                int[] t = new int[Prayer.NB_PRAYERS];
+                int j, s = 0;
+                for (j = 0; j < n; j++) {
+                    loc.degreeLat = lat[j];
+                    loc.degreeLong = lon[j];
+                    loc.gmtDiff = gmtDiff[j];
+                    s += prayer.getPrayerTimes(loc, conf, dates[i % NB_DATES], t);
+                }
+                return s + t[0];
+            }
+        }, n);
+
+        for (p = 1; p <= Runtime.getRuntime().availableProcessors(); p *= 2) {
+            final BulkPrayer bulk = new BulkPrayer(new ForkJoinPool(p), null, 256);
+            bench("bulk.10k.parallelism." + p, new Bench() {
+                public double run(int i) {
+                    bulk.getPrayerTimes(lat, lon, seaLevel, gmtDiff, conf,
+                            dates[i % NB_DATES], times, extreme);
+                    return times[0][i % n];
+                }
+            }, n);
+        }
+    }
+
+    private static void benchStepping()
+    {
+        int i, k;
+        final double jd = AstroDay.getJulianDay(dates[0], 0);
+        final AstroDay astroDay = new AstroDay();
+        final AstroValues astro = new AstroValues();
+        final Method conf = getMethod(Method.MUSLIM_LEAGUE, 5);
+        int[] anchorDays = {1, 16, SteppingEphemeris.DEF_ANCHOR_DAYS, 1024};
+
+        /* Consecutive days, as when computing a calendar */
+        bench("stepping.direct", new Bench() {
+            public double run(int i) {
+                astroDay.computeAstroDay(jd + i, astro, 0);
+                return astro.ra[0];
+            }
+        });
+
+        for (i = 0; i < anchorDays.length; i++) {
+            final SteppingEphemeris eph = new SteppingEphemeris(anchorDays[i]);
+            bench("stepping.anchor." + anchorDays[i], new Bench() {
+                public double run(int i) {
+                    eph.computeAstroDay(jd + i, astro, 0);
+                    return astro.ra[0];
+                }
+            });
+        }
+
+        bench("stepping.year.range", new Bench() {
+            public double run(int i) {
+                return new Prayer(new SteppingEphemeris()).getPrayerTimesForRange(
+                        locs[i % locs.length], conf, dates[0],
+                        NB_DATES).minute[0][NB_DATES - 1];
+            }
+        });
+
+        /* Largest deviation from AstroDay over 200 years of consecutive days */
+        for (i = 0; i < anchorDays.length; i++) {
+            String name = "stepping.drift." + anchorDays[i];
+            if (!filter.matcher(name).find())
+                continue;
+            SteppingEphemeris eph = new SteppingEphemeris(anchorDays[i]);
+            double[] max = eph.getMaxDeviation(astroDay,
+                    AstroDay.getJulianDay(1900, 1, 1, 0), 200 * 365);
+            System.out.printf("%-36s ra %.2g\" dec %.2g\" sid %.2g\"\n", name,
+                    max[0], max[1], max[2]);
+        }
+    }
+
+    private static void benchPrecision()
+    {
+        int p;
+        final double jd = AstroDay.getJulianDay(dates[0], 0);
+        final AstroValues astro = new AstroValues();
+        String[] names = {"full", "standard", "fast"};
+
+        for (p = Method.PRECISION_FULL; p <= Method.PRECISION_FAST; p++) {
+            final AstroDay astroDay = new AstroDay(p);
+            bench("precision." + names[p] + ".computeAstroDay", new Bench() {
+                public double run(int i) {
+                    astroDay.computeAstroDay(jd + (i % 36500), astro, 0);
+                    return astro.ra[0];
+                }
+            });
+
+            final Prayer prayer = new Prayer();
+            final Method conf = getMethod(Method.MUSLIM_LEAGUE, 5);
+            final int[] times = new int[Prayer.NB_PRAYERS];
+            conf.precision = p;
+            bench("precision." + names[p] + ".intArray", new Bench() {
+                public double run(int i) {
+                    return prayer.getPrayerTimes(locs[i % locs.length], conf,
+                            dates[i % NB_DATES], times) + times[0];
+                }
+            });
+        }
+
+        /* Largest difference with the full precision, in seconds, over a
+           global grid and 200 years: latitudes within 60 degrees, then the
+           high latitudes (60 to 80 degrees, north and south) */
+        for (p = Method.PRECISION_STANDARD; p <= Method.PRECISION_FAST; p++) {
+            for (int high = 0; high < 2; high++) {
+                String name = "precision." + names[p] + ".error"
+                    + (high == 0 ? "" : ".high");
+                if (!filter.matcher(name).find())
+                    continue;
+                int[] max = high == 0 ? getMaxPrecisionError(p, 0, 60, 15)
+                                      : getMaxPrecisionError(p, 65, 80, 5);
+                System.out.printf("%-36s fajr %ds shurooq %ds zuhr %ds assr %ds "
+                        + "maghrib %ds ishaa %ds\n", name, max[0], max[1], max[2],
+                        max[3], max[4], max[5]);
+            }
+        }
+    }
+
+    /* Largest differences with the full precision of the latitudes from
+       "minLat" to "maxLat" (by "step", north and south) */
+    private static int[] getMaxPrecisionError(int precision, double minLat,
+                                              double maxLat, double step)
+    {
+        int i, d, e, s;
+        double lat, lon;
+        Prayer prayer = new Prayer(), full = new Prayer();
+        Method conf = getMethod(Method.MUSLIM_LEAGUE, 0);
+        Method fullConf = getMethod(Method.MUSLIM_LEAGUE, 0);
+        int[] times = new int[Prayer.NB_PRAYERS];
+        int[] fullTimes = new int[Prayer.NB_PRAYERS];
+        int[] max = new int[Prayer.NB_PRAYERS];
+        GregorianCalendar cal = new GregorianCalendar(1900, 0, 1);
+
+        conf.round = fullConf.round = 0;
+        conf.precision = precision;
+
+        /* One day every 29 days to sample all the lunar phases */
+        for (d = 0; d < 200 * 365; d += 29, cal.add(GregorianCalendar.DATE, 29))
+            for (lat = minLat; lat <= maxLat; lat += step)
+                for (s = (lat == 0) ? 1 : -1; s <= 1; s += 2)
+                    for (lon = -180; lon < 180; lon += 30) {
+                        PTLocation loc = new PTLocation(s * lat, lon,
+                                Math.round(lon / 15), 0, 0, 1010, 10);
+                        prayer.getPrayerTimes(loc, conf, cal.getTime(), times);
+                        full.getPrayerTimes(loc, fullConf, cal.getTime(), fullTimes);
+                        for (i = 0; i < Prayer.NB_PRAYERS; i++) {
+                            /* Days where only one tier reaches the angle
+                               are not compared */
+                            if (times[i] == Prayer.INVALID_TIME
+                                    || fullTimes[i] == Prayer.INVALID_TIME)
+                                continue;
+                            e = Math.abs(times[i] - fullTimes[i]);
+                            max[i] = Math.max(max[i], Math.min(e, 86400 - e));
+                        }
+                    }
+        return max;
+    }
+
+    private static void benchStore()
+    {
+        final int nbLocations = 1000;
+        final Method conf = getMethod(Method.MUSLIM_LEAGUE, 5);
+        final Prayer prayer = new Prayer();
+        final TimetableStore store = new TimetableStore(nbLocations, false);
+        final int[] times = new int[TimetableStore.NB_TIMES];
+
+        /* One operation is a full year of one location */
+        bench("store.fill", new Bench() {
+            public double run(int i) {
+                store.fill(i % nbLocations, prayer, locs[i % locs.length], conf, 2015);
+                return store.get(i % nbLocations, 1, 0);
+            }
+        });
+
+        bench("store.get", new Bench() {
+            public double run(int i) {
+                return store.get((i % nbLocations) * 7919 % nbLocations, 1 + i % 366,
+                        i % TimetableStore.NB_TIMES);
+            }
+        });
+
+        bench("store.getDay", new Bench() {
+            public double run(int i) {
+                store.getDay((i % nbLocations) * 7919 % nbLocations, 1 + i % 366, times);
+                return times[0];
+            }
+        });
+    }
+
+    private static void benchCalendarFile()
+    {
+        final Method conf = getMethod(Method.MUSLIM_LEAGUE, 5);
+        final Prayer prayer = new Prayer();
+        final LocalDate start = LocalDate.of(2015, 1, 1);
+        final int[] times = new int[Prayer.NB_PRAYERS];
+        final String fileName;
+        final CalendarReader reader;
+
+        if (!filter.matcher("calendar.write").find() &&
+                !filter.matcher("calendar.getDay").find())
+            return;
+        try {
+            File file = File.createTempFile("bench", ".ptc");
+            file.deleteOnExit();
+            fileName = file.getPath();
+
+            /* One operation is a full year for one location */
+            bench("calendar.write", new Bench() {
+                public double run(int i) {
+                    try {
+                        CalendarWriter.write(fileName, prayer, locs[i % locs.length],
+                                conf, start, NB_DATES);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return i;
+                }
+            });
+
+            CalendarWriter.write(fileName, prayer, locs[0], conf, start, NB_DATES);
+            reader = new CalendarReader(fileName);
+            System.out.printf("%-36s %d bytes\n", "calendar.year.size", file.length());
+            bench("calendar.getDay", new Bench() {
+                public double run(int i) {
+                    try {
+                        reader.getDay(i % NB_DATES, times);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return times[0];
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void benchStream()
+    {
+        final Method conf = getMethod(Method.MUSLIM_LEAGUE, 5);
+        final Prayer prayer = new Prayer();
+        final LocalDate from = LocalDate.of(2015, 1, 1);
+        final LocalDate to = LocalDate.of(2024, 12, 31);
+
+        /* One operation is ten years of one location. The parallel stream
+           uses the common pool (parallelism printed with the name). */
+        bench("stream.decade.sequential", new Bench() {
+            public double run(int i) {
+                return prayer.days(locs[i % locs.length], conf, from, to)
+                        .mapToInt(d -> d.times[0]).sum();
+            }
+        });
+
+        bench("stream.decade.parallel." + ForkJoinPool.getCommonPoolParallelism(),
+                new Bench() {
+            public double run(int i) {
+                return prayer.days(locs[i % locs.length], conf, from, to).parallel()
+                        .mapToInt(d -> d.times[0]).sum();
+            }
+        });
+    }
+
+    private static void benchNextPrayer()
+    {
+        final Method conf = getMethod(Method.MUSLIM_LEAGUE, 5);
+        final Prayer prayer = new Prayer();
+        final long start = LocalDate.of(2015, 1, 1).toEpochDay() * 86400;
+        final NextPrayer[] next = new NextPrayer[locs.length];
+        final NextPrayer[] rollover = new NextPrayer[locs.length];
+        int i;
+
+        for (i = 0; i < locs.length; i++) {
+            next[i] = new NextPrayer(locs[i], conf);
+            rollover[i] = new NextPrayer(locs[i], conf);
+        }
+
+        /* Queries within one day (every 97 seconds) */
+        bench("next.hit", new Bench() {
+            public double run(int i) {
+                return next[i % locs.length].getNext(start + (i / locs.length % 890)
+                        * 97).epochSecond;
+            }
+        });
+
+        /* Queries one day apart: a rollover each time */
+        bench("next.rollover", new Bench() {
+            public double run(int i) {
+                return rollover[i % locs.length].getNext(start + (i / locs.length)
+                        * 86400L + 43200).epochSecond;
+            }
+        });
+
+        /* Queries 10 days apart, every 7 hours of the day: a new window each
+           time, with the next day only after the last prayer */
+        final NextPrayer[] miss = new NextPrayer[locs.length];
+        for (i = 0; i < locs.length; i++)
+            miss[i] = new NextPrayer(locs[i], conf);
+        bench("next.miss", new Bench() {
+            public double run(int i) {
+                return miss[i % locs.length].getNext(start + (i / locs.length % 3650)
+                        * 864000L + (i % 24) * 25200L % 86400).epochSecond;
+            }
+        });
+
+        /* The prayer times of the day and the next Fajr */
+        bench("next.recompute", new Bench() {
+            public double run(int i) {
+                PrayerTime[] pt = prayer.getPrayerTimes(locs[i % locs.length], conf,
+                        dates[i % NB_DATES]);
+                return pt[0].hour + prayer.getNextDayFajr(locs[i % locs.length], conf,
+                        dates[i % NB_DATES]).hour;
+            }
+        });
+    }
+
+    private static void benchScheduler()
+    {
+        final int nbSubscriptions = 10000;
+        final Method conf = getMethod(Method.MUSLIM_LEAGUE, 5);
+        final long[] now = { LocalDate.of(2015, 1, 1).toEpochDay() * 86400000L };
+        final Clock clock = new Clock() {
+            public ZoneId getZone() { return ZoneId.of("UTC"); }
+            public Clock withZone(ZoneId zone) { return this; }
+            public Instant instant() { return Instant.ofEpochMilli(now[0]); }
+            public long millis() { return now[0]; }
+        };
+        final PrayerScheduler scheduler = new PrayerScheduler(clock, Runnable::run);
+        final PrayerListener listener = (s, e) -> sink += e.epochSecond;
+        int i;
+
+        if (!filter.matcher("scheduler.subscribe").find() &&
+                !filter.matcher("scheduler.minute").find())
+            return;
+
+        /* One operation subscribes and cancels one location */
+        bench("scheduler.subscribe", new Bench() {
+            public double run(int i) {
+                return scheduler.cancel(scheduler.subscribe(locs[i % locs.length],
+                        conf, null, listener)) ? 1 : 0;
+            }
+        });
+
+        /* One operation is one minute of the clock for 10000 subscriptions
+           (about 42 prayers per minute) */
+        for (i = 0; i < nbSubscriptions; i++)
+            scheduler.subscribe(locs[i % locs.length], conf, null, listener);
+        bench("scheduler.minute." + nbSubscriptions, new Bench() {
+            public double run(int i) {
+                now[0] += 60000;
+                return scheduler.advance();
+            }
+        });
+        System.out.printf("%-36s %d fired, lag %d s\n", "scheduler.minute.fired",
+                scheduler.getNbFired(), scheduler.getLag());
+    }
+
+    private static void benchResultCache()
+    {
+        final int nbUsers = 1000;
+        final Method conf = getMethod(Method.MUSLIM_LEAGUE, 5);
+        final PrayerTimeCache cache = new PrayerTimeCache(1 << 16, 500, 100);
+        final PTLocation[] users = new PTLocation[nbUsers];
+        final int[] times = new int[Prayer.NB_PRAYERS];
+        final long firstDay = LocalDate.of(2015, 1, 1).toEpochDay();
+        Random random = new Random(1);
+        int i;
+
+        /* Users within about 1 km of the locations, over 30 days */
+        for (i = 0; i < nbUsers; i++) {
+            users[i] = new PTLocation(locs[i % locs.length]);
+            users[i].degreeLat += (random.nextDouble() - 0.5) * 0.02;
+            users[i].degreeLong += (random.nextDouble() - 0.5) * 0.02;
+        }
+
+        bench("cache.nearby", new Bench() {
+            public double run(int i) {
+                return cache.getPrayerTimes(users[i % nbUsers], conf,
+                        firstDay + i / nbUsers % 30, times);
+            }
+        });
+        if (filter.matcher("cache.nearby").find())
+            System.out.printf("%-36s %.1f%%\n", "cache.nearby.hitRatio",
+                    100 * cache.getHitRatio());
+    }
+
+    private static void benchGrid()
+    {
+        final int nbPoints = 4096;          /* within 45 degrees of latitude */
+        final Method conf = getMethod(Method.MUSLIM_LEAGUE, 5);
+        final PTLocation[] points = new PTLocation[nbPoints];
+        final int[] times = new int[Prayer.NB_PRAYERS];
+        final PrayerGrid grid;
+        Random random = new Random(1);
+        long start;
+        int i;
+
+        if (!filter.matcher("grid.query").find())
+            return;
+
+        for (i = 0; i < nbPoints; i++) {
+            points[i] = new PTLocation(random.nextDouble() * 90 - 45,
+                    random.nextDouble() * 360 - 180, 0, 0, 0, 1010, 10);
+            points[i].gmtDiff = Math.round(points[i].degreeLong / 15);
+        }
+
+        start = System.nanoTime();
+        grid = new PrayerGrid(conf, LocalDate.of(2015, 6, 1), 1);
+        System.out.printf("%-36s %.0f ms\n", "grid.build.1deg",
+                (System.nanoTime() - start) / 1e6);
+
+        bench("grid.query", new Bench() {
+            public double run(int i) {
+                return grid.getPrayerTimes(points[i % nbPoints], times) + times[0];
+            }
+        });
+        System.out.printf("%-36s %.1f%%\n", "grid.query.fallback",
+                100.0 * grid.getFallbacks() / grid.getQueries());
+    }
+
+    private static void benchPreparedLocation()
+    {
+        final Method conf = getMethod(Method.MUSLIM_LEAGUE, 5);
+        final Prayer prayer = new Prayer(SolarCache.getShared());
+        final int[] times = new int[Prayer.NB_PRAYERS];
+        final LocalDate start = LocalDate.of(2015, 1, 1);
+        final PTLocation[] prepared = new PTLocation[locs.length];
+        int i;
+
+        for (i = 0; i < locs.length; i++)
+            prepared[i] = new PreparedLocation(locs[i]);
+
+        /* With cached solar values, so that the location terms count */
+        for (final String name : new String[] { "plain", "prepared" }) {
+            final PTLocation[] l = name.equals("plain") ? locs : prepared;
+
+            bench("location." + name + ".intArray", new Bench() {
+                public double run(int i) {
+                    return prayer.getPrayerTimes(l[i % l.length], conf,
+                            dates[i % NB_DATES], times) + times[0];
+                }
+            });
+
+            /* One operation is a full year of one location */
+            bench("location." + name + ".range", new Bench() {
+                public double run(int i) {
+                    return prayer.getPackedTimesForRange(l[i % l.length], conf,
+                            start, NB_DATES).times[0];
+                }
+            }, NB_DATES);
+        }
+    }
+
+    private static void benchDaySchedule()
+    {
+        final Method conf = getMethod(Method.MUSLIM_LEAGUE, 5);
+        final Prayer prayer = new Prayer();
+
+        /* As DemoPrayerTime did: the prayers, Imsaak, the next day's Fajr and
+           Imsaak with the separate calls */
+        bench("schedule.separate", new Bench() {
+            public double run(int i) {
+                PTLocation loc = locs[i % locs.length];
+                Date date = dates[(i / locs.length) % NB_DATES];
+
+                return prayer.getPrayerTimes(loc, conf, date)[0].minute +
+                    prayer.getImsaak(loc, conf, date).minute +
+                    prayer.getNextDayFajr(loc, conf, date).minute +
+                    prayer.getNextDayImsaak(loc, conf, date).minute;
+            }
+        });
+
+        bench("schedule.single", new Bench() {
+            public double run(int i) {
+                return prayer.getDaySchedule(locs[i % locs.length], conf,
+                        dates[(i / locs.length) % NB_DATES]).times[DaySchedule.MIDNIGHT];
+            }
+        });
+    }
+
+    /* getPrayerTimes into an int[] must not allocate once compiled, with
+       every extreme method, at a mid and a high latitude. Each check counts
+       the bytes allocated by a year of calls, after a warmup, and fails (main
+       then exits with status 1) if there is any. */
+    private static void benchNoAllocation()
+    {
+        int ex, k, r;
+        long min;
+        final int[] times = new int[Prayer.NB_PRAYERS];
+        final Prayer prayer = new Prayer();
+        final double[] lats = {36.7, 68};
+
+        for (k = 0; k < lats.length; k++)
+            for (ex = 0; ex <= 14; ex++) {
+                String name = "alloc.intArray.lat" + (int)lats[k] + ".extreme." + ex;
+                final Method conf = getMethod(Method.MUSLIM_LEAGUE, ex);
+                final PTLocation loc = new PTLocation(lats[k], 3, 1, 0, 0, 1010, 10);
+                Bench b = new Bench() {
+                    public double run(int i) {
+                        return prayer.getPrayerTimes(loc, conf,
+                                dates[i % NB_DATES], times) + times[0];
+                    }
+                };
+
+                if (!filter.matcher(name).find())
+                    continue;
+                getAllocatedBytes(b, 50 * NB_DATES);
+                /* The smallest of a few years, a GC or a compilation of the
+                   JVM may allocate in the thread during one of them */
+                min = Long.MAX_VALUE;
+                for (r = 0; r < 5; r++)
+                    min = Math.min(min, getAllocatedBytes(b, NB_DATES));
+                if (min < 0)
+                    continue;
+                System.out.printf("%-36s %d bytes in %d calls%s\n", name, min,
+                        NB_DATES, (min == 0) ? "" : ": FAILED");
+                if (min > 0)
+                    nbFailed++;
+            }
+    }
+
+    /* Returns the bytes allocated by "n" calls of "b" (-1 if not measured).
+       The measure may allocate a little more at times than when it is
+       calibrated, hence the 0 floor. */
+    private static long getAllocatedBytes(Bench b, int n)
+    {
+        int i;
+        long empty, bytes;
+        double sum = 0;
+
+        /* What the measure itself allocates */
+        empty = getAllocatedBytes();
+        empty = getAllocatedBytes() - empty;
+
+        bytes = getAllocatedBytes();
+        for (i = 0; i < n; i++)
+            sum += b.run(i);
+        bytes = getAllocatedBytes() - bytes;
+
+        sink = sum;
+        return (bytes < 0) ? -1 : Math.max(bytes - empty, 0);
+    }
+
+    private static void benchPrayerTimes(String name, int method, int extreme,
+                                         final Date[] days, final PTLocation[] l)
+    {
+        final Prayer prayer = new Prayer();
+        final Method conf = getMethod(method, extreme);
+
+        bench(name, new Bench() {
+            public double run(int i) {
+                return prayer.getPrayerTimes(l[i % l.length], conf,
+                        days[(i / l.length) % days.length])[0].minute;
+            }
+        });
+    }
+
+    private static void bench(String name, Bench b)
+    {
+        bench(name, b, 1);
+    }
+
+    /* Each call of "b" counts as "opsPerRun" operations. The bytes allocated
+       are only those of the calling thread. */
+    private static void bench(String name, Bench b, int opsPerRun)
+    {
+        int i, n;
+        long start, end, ops, bytes, gc;
+        double sum = 0;
+
+        if (!filter.matcher(name).find())
+            return;
+
+        /* Warmup, also used to size the batches to about 10 ms */
+        n = 1;
+        ops = 0;
+        start = System.nanoTime();
+        do {
+            for (i = 0; i < n; i++)
+                sum += b.run(i);
+            ops += n;
+            if (System.nanoTime() - start < 10000000L * ops / n)
+                n *= 2;
+        } while (System.nanoTime() - start < warmupMs * 1000000L);
+
+        ops = 0;
+        bytes = getAllocatedBytes();
+        gc = getGcCount();
+        start = System.nanoTime();
+        do {
+            for (i = 0; i < n; i++)
+                sum += b.run(i);
+            ops += n;
+            end = System.nanoTime();
+        } while (end - start < measureMs * 1000000L);
+        bytes = getAllocatedBytes() - bytes;
+        gc = getGcCount() - gc;
+
+        sink = sum;
+        ops *= opsPerRun;
+        System.out.printf("%-36s %12.1f %12.0f %10.1f %6d\n", name,
+                (end - start) / (double)ops, ops * 1e9 / (end - start),
+                (bytes < 0) ? Double.NaN : bytes / (double)ops, gc);
+    }
+
+    private static long getAllocatedBytes()
+    {
+        java.lang.management.ThreadMXBean mx = ManagementFactory.getThreadMXBean();
+
+        if (mx instanceof com.sun.management.ThreadMXBean)
+            return ((com.sun.management.ThreadMXBean)mx).getThreadAllocatedBytes(
+                    Thread.currentThread().getId());
+        return -1;
+    }
+
+    private static long getGcCount()
+    {
+        long count = 0;
+
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+            count += Math.max(gc.getCollectionCount(), 0);
+        return count;
+    }
+
+    private static Method getMethod(int method, int extreme)
+    {
+        Method conf = new Method();
+
+        conf.setMethod(method);
+        conf.extreme = extreme;
+        return conf;
+    }
+
+    private static PTLocation[] getLocations(String set)
+    {
+        List<double[]> l = new ArrayList<double[]>();
+
+        if (set.equals("low") || set.equals("all"))
+            for (double[] v : LOW) l.add(v);
+        if (set.equals("mid") || set.equals("all"))
+            for (double[] v : MID) l.add(v);
+        if (set.equals("high") || set.equals("all"))
+            for (double[] v : HIGH) l.add(v);
+        if (l.isEmpty())
+            throw new IllegalArgumentException("unknown location set: " + set);
+
+        return toLocations(l.toArray(new double[0][]));
+    }
+
+    private static PTLocation[] toLocations(double[][] set)
+    {
+        int i;
+        PTLocation[] l = new PTLocation[set.length];
+
+        for (i = 0; i < set.length; i++)
+            l[i] = new PTLocation(set[i][0], set[i][1], set[i][2], 0, set[i][3], 1010, 10);
+        return l;
+    }
+
+    private static Date[] getDates(int year, int month, int day, int nb)
+    {
+        int i;
+        Date[] d = new Date[nb];
+        GregorianCalendar cal = new GregorianCalendar(year, month, day);
+
+        for (i = 0; i < nb; i++) {
+            d[i] = cal.getTime();
+            cal.add(GregorianCalendar.DATE, 1);
+        }
+        return d;
+    }
+}
@@ -46,10 +46,15 @@ public class DemoPrayerTime {
         Prayer prayer = new Prayer();
         PrayerTime[] ptList = prayer.getPrayerTimes(loc, conf, date);
 
-        /* Call functions for other prayer times and qibla */
-        PrayerTime imsaak = prayer.getImsaak(loc, conf, date);
-        PrayerTime nextFajr = prayer.getNextDayFajr(loc, conf, date);
-        PrayerTime nextImsaak = prayer.getNextDayImsaak(loc, conf, date);
+        /* Call functions for other prayer times and qibla. getDaySchedule
+           gives the same times as getImsaak, getNextDayFajr and
+           getNextDayImsaak in a single call, with the night times */
+        DaySchedule schedule = prayer.getDaySchedule(loc, conf, date);
+        PrayerTime imsaak = schedule.getPrayerTime(DaySchedule.IMSAAK);
+        PrayerTime nextFajr = schedule.getPrayerTime(DaySchedule.NEXT_FAJR);
+        PrayerTime nextImsaak = schedule.getPrayerTime(DaySchedule.NEXT_IMSAAK);
+        PrayerTime midnight = schedule.getPrayerTime(DaySchedule.MIDNIGHT);
+        PrayerTime lastThird = schedule.getPrayerTime(DaySchedule.LAST_THIRD);
         qibla = Angle.getNorthQibla(loc);
 
         /* Show the results */
@@ -81,7 +86,9 @@ public class DemoPrayerTime {
         System.out.printf ("\n\n");
         System.out.printf("Tomorrow's Fajr:\t%3d:%02d\n", nextFajr.hour, nextFajr.minute);
         System.out.printf("Tomorrow's Imsaak:\t%3d:%02d\n", nextImsaak.hour, nextImsaak.minute);
-        System.out.printf("Today's Imsaak:\t\t%3d:%02d\n\n", imsaak.hour, imsaak.minute);
+        System.out.printf("Today's Imsaak:\t\t%3d:%02d\n", imsaak.hour, imsaak.minute);
+        System.out.printf("Midnight:\t\t%3d:%02d\n", midnight.hour, midnight.minute);
+        System.out.printf("Last third of night:\t%3d:%02d\n\n", lastThird.hour, lastThird.minute);
     }
 }
 
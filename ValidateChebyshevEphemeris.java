@@ -0,0 +1,156 @@
+/************************************************************************
+ * ------------
+ * Description:
+ * ------------
+ *  Copyright (c) 2003-2006, 2009 Arabeyes, Thamer Mahmoud
+ *  Copyright (c) 2015, Djalel Chefrour, porting to Java.
+ *
+ *  A full featured Muslim Prayer Times calculator
+ *
+ *  Most of the astronomical values and formulas used in this file are based
+ *  upon a subset of the VSOP87 planetary theory developed by Jean Meeus. Page
+ *  and formula numbers in-line below are references to his book: Astronomical
+ *  Algorithms. Willmann-Bell, second edition, 1998.
+ *
+ * (www.arabeyes.org - under LGPL license - see COPYING file)
+ ************************************************************************/
+
+import java.time.LocalDate;
+import java.util.Random;
+
+import org.arabeyes.prayertime.*;
+
+/* Measures the differences between the Sun positions and prayer times
+   computed with ChebyshevEphemeris and with the VSOP87 series.
+
+   $ javac ValidateChebyshevEphemeris.java
+   $ java ValidateChebyshevEphemeris [-y startYear] [-z endYear]
+                                     [-sd segmentDays] [-g degree]
+                                     [-d days] [-n points] [-l latitude]
+                                     [-m method] [-r round] [-t tolerance]
+                                     [-s seed]
+
+   The polynomials are fitted to VSOP87 for the years "startYear" to
+   "endYear" (default 1900-2200, 16-day segments of degree 12), then the
+   report gives the largest deviation in right ascension, declination and
+   sidereal time (arc seconds), and the largest difference in seconds of
+   each prayer for "points" random locations (latitude within "latitude"
+   degrees, default 65, GMT difference of the nearest whole hour) on each of
+   "days" random days of the range. Times that are invalid with either
+   ephemeris are not compared. Exits with status 1 if a prayer differs by
+   more than "tolerance" seconds (default 1). */
+public class ValidateChebyshevEphemeris {
+
+    public static void main(String[] args)
+    {
+        int i, j, k, d, nbDays = 200, n = 500, method = Method.MUSLIM_LEAGUE;
+        int round = 0, tolerance = 1, diff, compared = 0;
+        int startYear = 1900, endYear = 2200;
+        int segmentDays = ChebyshevEphemeris.DEF_SEGMENT_DAYS;
+        int degree = ChebyshevEphemeris.DEF_DEGREE;
+        int[] maxDiffs = new int[Prayer.NB_PRAYERS];
+        int[] exact = new int[Prayer.NB_PRAYERS];
+        int[] fitted = new int[Prayer.NB_PRAYERS];
+        long seed = 1, firstDay, nbDaysRange, day, start;
+        double maxLat = 65;
+        double[] deviation;
+        boolean ok = true;
+        Random random;
+        Method conf = new Method();
+        ChebyshevEphemeris eph;
+        Prayer prayer = new Prayer();
+        Prayer chebyshev;
+        PTLocation loc = new PTLocation(0, 0, 0, 0, 0, 1010, 10);
+
+        for (i = 0; i < args.length && args[i].startsWith("-"); i += 2) {
+            if (i + 1 == args.length)
+                break;
+            if (args[i].equals("-y"))
+                startYear = Integer.parseInt(args[i + 1]);
+            else if (args[i].equals("-z"))
+                endYear = Integer.parseInt(args[i + 1]);
+            else if (args[i].equals("-sd"))
+                segmentDays = Integer.parseInt(args[i + 1]);
+            else if (args[i].equals("-g"))
+                degree = Integer.parseInt(args[i + 1]);
+            else if (args[i].equals("-d"))
+                nbDays = Integer.parseInt(args[i + 1]);
+            else if (args[i].equals("-n"))
+                n = Integer.parseInt(args[i + 1]);
+            else if (args[i].equals("-l"))
+                maxLat = Double.parseDouble(args[i + 1]);
+            else if (args[i].equals("-m"))
+                method = Integer.parseInt(args[i + 1]);
+            else if (args[i].equals("-r"))
+                round = Integer.parseInt(args[i + 1]);
+            else if (args[i].equals("-t"))
+                tolerance = Integer.parseInt(args[i + 1]);
+            else if (args[i].equals("-s"))
+                seed = Long.parseLong(args[i + 1]);
+            else break;
+        }
+        if (i != args.length || endYear < startYear) {
+            System.err.println("usage: java ValidateChebyshevEphemeris "
+                    + "[-y startYear] [-z endYear] [-sd segmentDays] "
+                    + "[-g degree] [-d days] [-n points] [-l latitude] "
+                    + "[-m method] [-r round] [-t tolerance] [-s seed]");
+            System.exit(1);
+        }
+
+        conf.setMethod(method);
+        conf.round = round;
+
+        start = System.nanoTime();
+        eph = ChebyshevEphemeris.fit(new AstroDay(), startYear, endYear,
+                segmentDays, degree);
+        System.out.printf("fit %d-%d, %d-day segments, degree %d: %.1f s\n",
+                startYear, endYear, segmentDays, degree,
+                (System.nanoTime() - start) / 1e9);
+
+        deviation = eph.getMaxDeviation(new AstroDay(), 100000);
+        System.out.printf("deviation: ra %.2g\" dec %.2g\" sid %.2g\"\n",
+                deviation[0], deviation[1], deviation[2]);
+
+        chebyshev = new Prayer(eph);
+        random = new Random(seed);
+        firstDay = LocalDate.of(startYear, 1, 1).toEpochDay();
+        nbDaysRange = LocalDate.of(endYear, 12, 31).toEpochDay()
+            - firstDay + 1;
+
+        for (d = 0; d < nbDays; d++)
+        {
+            day = firstDay + (long)(random.nextDouble() * nbDaysRange);
+
+            for (j = 0; j < n; j++)
+            {
+                loc.degreeLat = (random.nextDouble() * 2 - 1) * maxLat;
+                loc.degreeLong = random.nextDouble() * 360 - 180;
+                loc.gmtDiff = Math.round(loc.degreeLong / 15);
+
+                prayer.getPrayerTimes(loc, conf, day, exact);
+                chebyshev.getPrayerTimes(loc, conf, day, fitted);
+                for (k = 0; k < Prayer.NB_PRAYERS; k++)
+                {
+                    if (exact[k] == Prayer.INVALID_TIME
+                            || fitted[k] == Prayer.INVALID_TIME)
+                        continue;
+                    /* Times on both sides of midnight */
+                    diff = Math.abs(exact[k] - fitted[k]);
+                    diff = Math.min(diff, 86400 - diff);
+                    maxDiffs[k] = Math.max(maxDiffs[k], diff);
+                    compared++;
+                }
+            }
+        }
+
+        System.out.printf("%d times compared, largest differences:", compared);
+        for (k = 0; k < Prayer.NB_PRAYERS; k++) {
+            System.out.printf(" %ds", maxDiffs[k]);
+            if (maxDiffs[k] > tolerance)
+                ok = false;
+        }
+        System.out.println(ok ? " (OK)" : " (above " + tolerance + "s)");
+        if (!ok)
+            System.exit(1);
+    }
+}
@@ -0,0 +1,129 @@
+/************************************************************************
+ * ------------
+ * Description:
+ * ------------
+ *  Copyright (c) 2003-2006, 2009 Arabeyes, Thamer Mahmoud
+ *  Copyright (c) 2015, Djalel Chefrour, porting to Java.
+ *
+ *  A full featured Muslim Prayer Times calculator
+ *
+ *  Most of the astronomical values and formulas used in this file are based
+ *  upon a subset of the VSOP87 planetary theory developed by Jean Meeus. Page
+ *  and formula numbers in-line below are references to his book: Astronomical
+ *  Algorithms. Willmann-Bell, second edition, 1998.
+ *
+ * (www.arabeyes.org - under LGPL license - see COPYING file)
+ ************************************************************************/
+
+import java.util.Random;
+
+import org.arabeyes.prayertime.*;
+
+/* Measures how often PrayerTimeCache returns other times than Prayer.
+
+   $ javac ValidatePrayerCache.java
+   $ java ValidatePrayerCache [-n samples] [-m method] [-r round] [-e extreme]
+                              [-h heightStep] [-s seed] cellSize...
+
+   For each cell size (in meters), random locations (latitude within 60
+   degrees, height up to 2000 m) and days (2000-2039) are computed through
+   the cache and exactly. The report gives the rate of days with at least
+   one different time and, for each prayer, the rate of different times and
+   the largest difference in seconds ("inv" if only one of them is
+   invalid). The extreme methods that switch to another day (e.g. nearest
+   good day) may differ by more than the rounding. */
+public class ValidatePrayerCache {
+
+    public static void main(String[] args)
+    {
+        int i, j, k, n = 100000, method = Method.MUSLIM_LEAGUE, round = 2;
+        int extreme = 5, diff;
+        int[] nbDiffs, maxDiffs;
+        int[] exact = new int[Prayer.NB_PRAYERS];
+        int[] cached = new int[Prayer.NB_PRAYERS];
+        long seed = 1, firstDay = 10957, nbDays = 14610, nbDaysDiff;
+        double heightStep = 100, cellSize;
+        Random random;
+        Method conf = new Method();
+        Prayer prayer = new Prayer();
+        PrayerTimeCache cache;
+        PTLocation loc = new PTLocation(0, 0, 0, 0, 0, 1010, 10);
+
+        for (i = 0; i < args.length && args[i].startsWith("-"); i += 2) {
+            if (args[i].equals("-n"))
+                n = Integer.parseInt(args[i + 1]);
+            else if (args[i].equals("-m"))
+                method = Integer.parseInt(args[i + 1]);
+            else if (args[i].equals("-r"))
+                round = Integer.parseInt(args[i + 1]);
+            else if (args[i].equals("-e"))
+                extreme = Integer.parseInt(args[i + 1]);
+            else if (args[i].equals("-h"))
+                heightStep = Double.parseDouble(args[i + 1]);
+            else if (args[i].equals("-s"))
+                seed = Long.parseLong(args[i + 1]);
+        }
+        if (i == args.length) {
+            System.err.println("usage: java ValidatePrayerCache [-n samples] "
+                    + "[-m method] [-r round] [-e extreme] [-h heightStep] "
+                    + "[-s seed] cellSize...");
+            System.exit(1);
+        }
+
+        conf.setMethod(method);
+        conf.round = round;
+        conf.extreme = extreme;
+
+        System.out.printf("%8s %7s  %-13s %-13s %-13s %-13s %-13s %-13s\n",
+                "cell(m)", "days%", "fajr", "shurooq", "zuhr", "assr",
+                "maghrib", "ishaa");
+
+        for (; i < args.length; i++)
+        {
+            cellSize = Double.parseDouble(args[i]);
+            cache = new PrayerTimeCache(1024, cellSize, heightStep);
+            random = new Random(seed);
+            nbDiffs = new int[Prayer.NB_PRAYERS];
+            maxDiffs = new int[Prayer.NB_PRAYERS];
+            nbDaysDiff = 0;
+
+            for (j = 0; j < n; j++)
+            {
+                long day = firstDay + (long)(random.nextDouble() * nbDays);
+                boolean different = false;
+
+                loc.degreeLat = random.nextDouble() * 120 - 60;
+                loc.degreeLong = random.nextDouble() * 360 - 180;
+                loc.gmtDiff = Math.round(loc.degreeLong / 15);
+                loc.seaLevel = random.nextDouble() * 2000;
+
+                prayer.getPrayerTimes(loc, conf, day, exact);
+                cache.getPrayerTimes(loc, conf, day, cached);
+                for (k = 0; k < Prayer.NB_PRAYERS; k++)
+                {
+                    if (exact[k] == cached[k])
+                        continue;
+                    different = true;
+                    nbDiffs[k]++;
+                    if (exact[k] == Prayer.INVALID_TIME ||
+                            cached[k] == Prayer.INVALID_TIME)
+                        diff = Integer.MAX_VALUE;
+                    else {
+                        /* Times on both sides of midnight */
+                        diff = Math.abs(exact[k] - cached[k]);
+                        diff = Math.min(diff, 86400 - diff);
+                    }
+                    maxDiffs[k] = Math.max(maxDiffs[k], diff);
+                }
+                if (different)
+                    nbDaysDiff++;
+            }
+
+            System.out.printf("%8.0f %6.2f%%", cellSize, 100.0 * nbDaysDiff / n);
+            for (k = 0; k < Prayer.NB_PRAYERS; k++)
+                System.out.printf("  %5.2f%% %5s", 100.0 * nbDiffs[k] / n,
+                        maxDiffs[k] == Integer.MAX_VALUE ? "inv" : maxDiffs[k] + "s");
+            System.out.println();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/************************************************************************
+ * ------------
+ * Description:
+ * ------------
+ *  Copyright (c) 2003-2006, 2009 Arabeyes, Thamer Mahmoud
+ *  Copyright (c) 2015, Djalel Chefrour, porting to Java.
+ *
+ *  A full featured Muslim Prayer Times calculator
+ *
+ *  Most of the astronomical values and formulas used in this file are based
+ *  upon a subset of the VSOP87 planetary theory developed by Jean Meeus. Page
+ *  and formula numbers in-line below are references to his book: Astronomical
+ *  Algorithms. Willmann-Bell, second edition, 1998.
+ *
+ * (www.arabeyes.org - under LGPL license - see COPYING file)
+ ************************************************************************/
+
+import java.util.Random;
+
+import org.arabeyes.prayertime.*;
+
+/* Measures the differences between the times of PrayerGrid and Prayer.
+
+   $ javac ValidatePrayerGrid.java
+   $ java ValidatePrayerGrid [-d days] [-n points] [-m method] [-r round]
+                             [-e extreme] [-t tolerance] [-s seed] step...
+
+   For each grid step (in degrees), grids are computed for random days of
+   2000-2039 and compared with the exact times of random points (latitude
+   within 60 degrees, GMT difference of the nearest whole hour). The report
+   gives the rate of queries computed exactly (fallback) and, for each
+   prayer, the largest and the mean difference in seconds of the
+   interpolated times. */
+public class ValidatePrayerGrid {
+
+    public static void main(String[] args)
+    {
+        int i, j, k, d, nbDays = 4, n = 25000, method = Method.MUSLIM_LEAGUE;
+        int round = 0, extreme = 5, tolerance = 10, diff, queries;
+        int[] maxDiffs;
+        long[] sumDiffs;
+        int[] exact = new int[Prayer.NB_PRAYERS];
+        int[] grid = new int[Prayer.NB_PRAYERS];
+        long seed = 1, firstDay = 10957, nbDaysRange = 14610, day, fallbacks;
+        double step;
+        Random random;
+        Method conf = new Method();
+        Prayer prayer = new Prayer();
+        PrayerGrid prayerGrid;
+        PTLocation loc = new PTLocation(0, 0, 0, 0, 0, 1010, 10);
+
+        for (i = 0; i < args.length && args[i].startsWith("-"); i += 2) {
+            if (args[i].equals("-d"))
+                nbDays = Integer.parseInt(args[i + 1]);
+            else if (args[i].equals("-n"))
+                n = Integer.parseInt(args[i + 1]);
+            else if (args[i].equals("-m"))
+                method = Integer.parseInt(args[i + 1]);
+            else if (args[i].equals("-r"))
+                round = Integer.parseInt(args[i + 1]);
+            else if (args[i].equals("-e"))
+                extreme = Integer.parseInt(args[i + 1]);
+            else if (args[i].equals("-t"))
+                tolerance = Integer.parseInt(args[i + 1]);
+            else if (args[i].equals("-s"))
+                seed = Long.parseLong(args[i + 1]);
+        }
+        if (i == args.length) {
+            System.err.println("usage: java ValidatePrayerGrid [-d days] "
+                    + "[-n points] [-m method] [-r round] [-e extreme] "
+                    + "[-t tolerance] [-s seed] step...");
+            System.exit(1);
+        }
+
+        conf.setMethod(method);
+        conf.round = round;
+        conf.extreme = extreme;
+
+        System.out.printf("%6s %9s  %-12s %-12s %-12s %-12s %-12s %-12s\n",
+                "step", "fallback", "fajr", "shurooq", "zuhr", "assr",
+                "maghrib", "ishaa");
+
+        for (; i < args.length; i++)
+        {
+            step = Double.parseDouble(args[i]);
+            random = new Random(seed);
+            maxDiffs = new int[Prayer.NB_PRAYERS];
+            sumDiffs = new long[Prayer.NB_PRAYERS];
+            queries = 0;
+            fallbacks = 0;
+
+            for (d = 0; d < nbDays; d++)
+            {
+                day = firstDay + (long)(random.nextDouble() * nbDaysRange);
+                prayerGrid = new PrayerGrid(null, conf, day, step, tolerance);
+
+                for (j = 0; j < n; j++)
+                {
+                    loc.degreeLat = random.nextDouble() * 120 - 60;
+                    loc.degreeLong = random.nextDouble() * 360 - 180;
+                    loc.gmtDiff = Math.round(loc.degreeLong / 15);
+
+                    prayer.getPrayerTimes(loc, conf, day, exact);
+                    prayerGrid.getPrayerTimes(loc, grid);
+                    for (k = 0; k < Prayer.NB_PRAYERS; k++)
+                    {
+                        if (exact[k] == Prayer.INVALID_TIME)
+                            continue;
+                        /* Times on both sides of midnight */
+                        diff = Math.abs(exact[k] - grid[k]);
+                        diff = Math.min(diff, 86400 - diff);
+                        maxDiffs[k] = Math.max(maxDiffs[k], diff);
+                        sumDiffs[k] += diff;
+                    }
+                }
+                queries += n;
+                fallbacks += prayerGrid.getFallbacks();
+            }
+
+            System.out.printf("%6.2f %8.2f%%", step, 100.0 * fallbacks / queries);
+            for (k = 0; k < Prayer.NB_PRAYERS; k++)
+                System.out.printf("  %4ds %5.2fs", maxDiffs[k],
+                        (double)sumDiffs[k] / queries);
+            System.out.println();
+        }
+    }
+}
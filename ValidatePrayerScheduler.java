@@ -0,0 +1,226 @@
+/************************************************************************
+ * ------------
+ * Description:
+ * ------------
+ *  Copyright (c) 2003-2006, 2009 Arabeyes, Thamer Mahmoud
+ *  Copyright (c) 2015, Djalel Chefrour, porting to Java.
+ *
+ *  A full featured Muslim Prayer Times calculator
+ *
+ *  Most of the astronomical values and formulas used in this file are based
+ *  upon a subset of the VSOP87 planetary theory developed by Jean Meeus. Page
+ *  and formula numbers in-line below are references to his book: Astronomical
+ *  Algorithms. Willmann-Bell, second edition, 1998.
+ *
+ * (www.arabeyes.org - under LGPL license - see COPYING file)
+ ************************************************************************/
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.arabeyes.prayertime.*;
+
+/* Checks the prayers fired by PrayerScheduler against the times computed
+   day by day with Prayer.
+
+   $ javac ValidatePrayerScheduler.java
+   $ java ValidatePrayerScheduler [-n subscriptions] [-d days] [-s seed]
+                                  [-from yyyy-mm-dd]
+
+   Random locations are subscribed with a fixed GMT difference (that of the
+   nearest whole hour, latitude within 50S-60N) or in one of a few time
+   zones with daylight saving time (within 5 degrees of a city of the zone),
+   then a controlled clock is moved forward by random steps, from less than
+   a second to several hours so that the subscriptions go through all the
+   levels of the wheel, for "days" days from "from" (default 400 days from
+   2019-12-29, over changes of year and of daylight saving time). Every tenth subscription cancels itself from its
+   listener after 20 prayers, and every tenth other one is cancelled between
+   two steps at half time. The prayers fired for each subscription must be
+   exactly the expected ones, in order, and none may fire before its time.
+   Exits with status 1 otherwise. */
+public class ValidatePrayerScheduler {
+    private static final String[] ZONES = { null, "Europe/London",
+        "Asia/Riyadh", "America/New_York", "Australia/Sydney" };
+    /* Latitude and longitude around which the locations of each zone are */
+    private static final double[][] CENTERS = { null, {51.5, -0.1},
+        {24.7, 46.7}, {40.7, -74.0}, {-33.9, 151.2} };
+    private static final int SELF_CANCEL = 20;
+
+    private static long millis;        /* time of the clock */
+
+    /* The prayers received by one subscription */
+    static final class Received implements PrayerListener {
+        final List<long[]> events = new ArrayList<long[]>();
+        final boolean selfCancel;
+        long cancelled = Long.MAX_VALUE;    /* epoch second of the cancel */
+        int nbEarly;
+
+        Received(boolean selfCancel)
+        {
+            this.selfCancel = selfCancel;
+        }
+
+        public void onPrayer(PrayerScheduler.Subscription s, PrayerEvent e)
+        {
+            if (e.epochSecond > millis / 1000)
+                nbEarly++;
+            events.add(new long[] { e.prayer, e.epochSecond });
+            if (selfCancel && events.size() == SELF_CANCEL)
+                cancelled = e.epochSecond;
+        }
+    }
+
+    public static void main(String[] args)
+    {
+        int i, k, n = 300, nbDays = 400, bad = 0;
+        long seed = 1, start, end, day, offset, t, total = 0;
+        int[] times = new int[Prayer.NB_PRAYERS];
+        LocalDate from = LocalDate.of(2019, 12, 29);
+        Random random;
+        Method conf = new Method();
+        Prayer prayer = new Prayer();
+        List<PrayerScheduler.Subscription> subs;
+        List<Received> received;
+        List<long[]> expected;
+        PrayerScheduler scheduler;
+        PTLocation loc;
+        ZoneYear zoneYear;
+        Clock clock = new Clock() {
+            public ZoneId getZone() { return ZoneOffset.UTC; }
+            public Clock withZone(ZoneId zone) { return this; }
+            public Instant instant() { return Instant.ofEpochMilli(millis); }
+            public long millis() { return millis; }
+        };
+
+        for (i = 0; i < args.length && args[i].startsWith("-"); i += 2) {
+            if (i + 1 == args.length)
+                break;
+            if (args[i].equals("-n"))
+                n = Integer.parseInt(args[i + 1]);
+            else if (args[i].equals("-d"))
+                nbDays = Integer.parseInt(args[i + 1]);
+            else if (args[i].equals("-s"))
+                seed = Long.parseLong(args[i + 1]);
+            else if (args[i].equals("-from"))
+                from = LocalDate.parse(args[i + 1]);
+            else break;
+        }
+        if (i != args.length || n < 1 || nbDays < 1) {
+            System.err.println("usage: java ValidatePrayerScheduler "
+                    + "[-n subscriptions] [-d days] [-s seed] [-from yyyy-mm-dd]");
+            System.exit(1);
+        }
+
+        conf.setMethod(Method.MUSLIM_LEAGUE);
+        random = new Random(seed);
+        millis = from.toEpochDay() * 86400000L + 12345;
+        start = millis / 1000;
+        end = start + nbDays * 86400L;
+
+        /* Listeners are called in the thread of "advance" */
+        scheduler = new PrayerScheduler(clock, Runnable::run);
+        subs = new ArrayList<PrayerScheduler.Subscription>();
+        received = new ArrayList<Received>();
+        for (i = 0; i < n; i++)
+        {
+            final Received r = new Received(i % 10 == 0);
+            String zone = ZONES[i % ZONES.length];
+
+            if (zone == null) {
+                loc = new PTLocation(-50 + random.nextDouble() * 110,
+                        -180 + random.nextDouble() * 360, 0, 0, 0, 1010, 10);
+                loc.gmtDiff = Math.round(loc.degreeLong / 15);
+            } else {
+                loc = new PTLocation(
+                        CENTERS[i % ZONES.length][0] + random.nextDouble() * 10 - 5,
+                        CENTERS[i % ZONES.length][1] + random.nextDouble() * 10 - 5,
+                        0, 0, 0, 1010, 10);
+            }
+            subs.add(scheduler.subscribe(loc, conf,
+                        zone == null ? null : ZoneId.of(zone),
+                        (s, e) -> {
+                            r.onPrayer(s, e);
+                            if (r.cancelled == e.epochSecond)
+                                scheduler.cancel(s);
+                        }));
+            received.add(r);
+        }
+
+        while (millis / 1000 < end)
+        {
+            /* Mostly short steps, some of several hours */
+            millis += (long)(random.nextDouble() * random.nextDouble() * 20000000);
+            scheduler.advance();
+
+            if (millis / 1000 >= (start + end) / 2
+                    && received.get(5).cancelled == Long.MAX_VALUE)
+                for (i = 5; i < n; i += 10)
+                    if (scheduler.cancel(subs.get(i)))
+                        received.get(i).cancelled = millis / 1000;
+        }
+        end = millis / 1000;
+
+        /* The expected prayers, day by day */
+        for (i = 0; i < n; i++)
+        {
+            PrayerScheduler.Subscription s = subs.get(i);
+            Received r = received.get(i);
+
+            expected = new ArrayList<long[]>();
+            for (day = start / 86400 - 2; day <= end / 86400 + 2; day++)
+            {
+                loc = new PTLocation(s.getLocation());
+                if (s.getZone() != null) {
+                    zoneYear = new ZoneYear(s.getZone(),
+                            LocalDate.ofEpochDay(day).getYear());
+                    loc.gmtDiff = zoneYear.getGmtDiff(day);
+                    loc.dst = zoneYear.getDst(day);
+                }
+                prayer.getPackedPrayerTimes(loc, conf, day, times);
+                offset = Math.round((loc.gmtDiff + loc.dst) * 3600);
+                for (k = 0; k < Prayer.NB_PRAYERS; k++) {
+                    if (!PackedTime.isValid(times[k]))
+                        continue;
+                    t = day * 86400 - offset + PackedTime.getSeconds(times[k]);
+                    if (t > start && t <= Math.min(end, r.cancelled))
+                        expected.add(new long[] { k, t });
+                }
+            }
+            expected.sort((a, b) -> Long.compare(a[1], b[1]));
+
+            total += r.events.size();
+            if (r.nbEarly > 0 || !isSame(r.events, expected)) {
+                if (bad++ < 5)
+                    System.out.printf("subscription %d (%.3f, %.3f, %s): %d "
+                            + "prayers fired, %d expected, %d early\n", i,
+                            s.getLocation().degreeLat, s.getLocation().degreeLong,
+                            s.getZone(), r.events.size(), expected.size(),
+                            r.nbEarly);
+            }
+        }
+
+        System.out.printf("%d subscriptions, %d days, %d prayers fired, "
+                + "%d subscriptions wrong, max drift %d ms\n", n, nbDays,
+                total, bad, scheduler.getMaxDrift());
+        if (bad > 0 || total != scheduler.getNbFired())
+            System.exit(1);
+    }
+
+    private static boolean isSame(List<long[]> a, List<long[]> b)
+    {
+        int i;
+
+        if (a.size() != b.size())
+            return false;
+        for (i = 0; i < a.size(); i++)
+            if (a.get(i)[0] != b.get(i)[0] || a.get(i)[1] != b.get(i)[1])
+                return false;
+        return true;
+    }
+}
@@ -0,0 +1,111 @@
+/************************************************************************
+ * ------------
+ * Description:
+ * ------------
+ *  Copyright (c) 2003-2006, 2009 Arabeyes, Thamer Mahmoud
+ *  Copyright (c) 2015, Djalel Chefrour, porting to Java.
+ *
+ *  A full featured Muslim Prayer Times calculator
+ *
+ *  Most of the astronomical values and formulas used in this file are based
+ *  upon a subset of the VSOP87 planetary theory developed by Jean Meeus. Page
+ *  and formula numbers in-line below are references to his book: Astronomical
+ *  Algorithms. Willmann-Bell, second edition, 1998.
+ *
+ * (www.arabeyes.org - under LGPL license - see COPYING file)
+ ************************************************************************/
+
+package org.arabeyes.prayertime.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.arabeyes.prayertime.AstroDay;
+import org.arabeyes.prayertime.AstroValues;
+import org.arabeyes.prayertime.PTLocation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/* The astro.* and precision.*.computeAstroDay cases of BenchPrayerTime. The
+   days wrap after 100 years (10 years for valuesByDayMiss). */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class AstronomyBenchmark {
+    @Param({"0", "1", "2"})
+    public int precision;      /* Method.precision */
+
+    private AstroDay astroDay;
+    private AstroValues astro;
+    private AstroValues topAstro;
+    private PTLocation loc;
+    private double jd;
+    private int i;
+
+    @Setup
+    public void setup()
+    {
+        astroDay = new AstroDay(precision);
+        astro = new AstroValues();
+        topAstro = new AstroValues();
+        loc = BenchmarkData.getLocations("low")[0];
+        jd = AstroDay.getJulianDay(BenchmarkData.getDates()[0], loc.gmtDiff);
+    }
+
+    @Benchmark
+    public double computeAstroDay()
+    {
+        astroDay.computeAstroDay(jd + (i++ % 36500), astro, 0);
+        return astro.ra[0];
+    }
+
+    /* Each call is one day after the previous one */
+    @Benchmark
+    public double valuesByDayShiftForward()
+    {
+        astroDay.getAstroValuesByDay(jd + nextDay(36500), loc, astro, topAstro);
+        return topAstro.ra[1];
+    }
+
+    /* Each call is one day before the previous one */
+    @Benchmark
+    public double valuesByDayShiftBack()
+    {
+        astroDay.getAstroValuesByDay(jd - nextDay(36500), loc, astro, topAstro);
+        return topAstro.ra[1];
+    }
+
+    /* Days are 10 days apart so the cache is never used */
+    @Benchmark
+    public double valuesByDayMiss()
+    {
+        astroDay.getAstroValuesByDay(jd + 10 * nextDay(3650), loc, astro,
+                topAstro);
+        return topAstro.ra[1];
+    }
+
+    /* Returns the next of "nbDays" successive days (0 to nbDays-1). When the
+       days wrap, the values kept by getAstroValuesByDay are dropped, so that
+       the first day is computed in full instead of being shifted. */
+    private int nextDay(int nbDays)
+    {
+        int d = i;
+
+        if (d == 0)
+            astro.jd = Double.NaN;
+        if (++i >= nbDays)
+            i = 0;
+        return d;
+    }
+}
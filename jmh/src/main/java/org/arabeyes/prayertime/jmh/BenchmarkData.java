@@ -0,0 +1,113 @@
+/************************************************************************
+ * ------------
+ * Description:
+ * ------------
+ *  Copyright (c) 2003-2006, 2009 Arabeyes, Thamer Mahmoud
+ *  Copyright (c) 2015, Djalel Chefrour, porting to Java.
+ *
+ *  A full featured Muslim Prayer Times calculator
+ *
+ *  Most of the astronomical values and formulas used in this file are based
+ *  upon a subset of the VSOP87 planetary theory developed by Jean Meeus. Page
+ *  and formula numbers in-line below are references to his book: Astronomical
+ *  Algorithms. Willmann-Bell, second edition, 1998.
+ *
+ * (www.arabeyes.org - under LGPL license - see COPYING file)
+ ************************************************************************/
+
+package org.arabeyes.prayertime.jmh;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.List;
+
+import org.arabeyes.prayertime.Method;
+import org.arabeyes.prayertime.PTLocation;
+
+/* Locations and dates of the benchmarks, the same as in BenchPrayerTime.
+   Location sets are "low" (below 40 degrees), "mid" (40-55), "high"
+   (55-70) and "all". */
+final class BenchmarkData {
+    static final int NB_DATES = 365;
+
+    private static final double[][] LOW = {
+        {21.4225, 39.8262, 3, 277},     /* Makkah */
+        {36.28639, 7.95111, 1, 697},    /* Souk Ahras */
+        {-6.2088, 106.8456, 7, 8},      /* Jakarta */
+        {33.8869, 9.5375, 1, 0},        /* Tunisia */
+    };
+    private static final double[][] MID = {
+        {51.5074, -0.1278, 0, 11},      /* London */
+        {48.8566, 2.3522, 1, 35},       /* Paris */
+        {40.7128, -74.0060, -5, 10},    /* New York */
+        {-45.8788, 170.5028, 12, 0},    /* Dunedin */
+    };
+    private static final double[][] HIGH = {
+        {59.9139, 10.7522, 1, 23},      /* Oslo */
+        {64.1466, -21.9426, 0, 0},      /* Reykjavik */
+        {68.0, 20.0, 1, 300},           /* Kiruna area */
+        {69.6492, 18.9553, 1, 10},      /* Tromso */
+    };
+
+    static final LocalDate START = LocalDate.of(2015, 1, 1);
+    static final LocalDate JUNE = LocalDate.of(2015, 6, 1);
+    static final int NB_JUNE_DATES = 30;
+
+    private BenchmarkData()
+    {
+    }
+
+    static Method getMethod(int method, int extreme)
+    {
+        Method conf = new Method();
+
+        conf.setMethod(method);
+        conf.extreme = extreme;
+        return conf;
+    }
+
+    static PTLocation[] getLocations(String set)
+    {
+        int i;
+        List<double[]> l = new ArrayList<double[]>();
+        PTLocation[] locs;
+
+        if (set.equals("low") || set.equals("all"))
+            for (double[] v : LOW) l.add(v);
+        if (set.equals("mid") || set.equals("all"))
+            for (double[] v : MID) l.add(v);
+        if (set.equals("high") || set.equals("all"))
+            for (double[] v : HIGH) l.add(v);
+        if (l.isEmpty())
+            throw new IllegalArgumentException("unknown location set: " + set);
+
+        locs = new PTLocation[l.size()];
+        for (i = 0; i < locs.length; i++)
+            locs[i] = new PTLocation(l.get(i)[0], l.get(i)[1], l.get(i)[2], 0,
+                    l.get(i)[3], 1010, 10);
+        return locs;
+    }
+
+    /* The NB_DATES days from START */
+    static Date[] getDates()
+    {
+        return getDates(START, NB_DATES);
+    }
+
+    /* The "nb" days from "start" */
+    static Date[] getDates(LocalDate start, int nb)
+    {
+        int i;
+        Date[] d = new Date[nb];
+        GregorianCalendar cal = new GregorianCalendar(start.getYear(),
+                start.getMonthValue() - 1, start.getDayOfMonth());
+
+        for (i = 0; i < nb; i++) {
+            d[i] = cal.getTime();
+            cal.add(GregorianCalendar.DATE, 1);
+        }
+        return d;
+    }
+}
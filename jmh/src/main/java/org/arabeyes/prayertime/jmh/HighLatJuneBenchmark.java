@@ -0,0 +1,77 @@
+/************************************************************************
+ * ------------
+ * Description:
+ * ------------
+ *  Copyright (c) 2003-2006, 2009 Arabeyes, Thamer Mahmoud
+ *  Copyright (c) 2015, Djalel Chefrour, porting to Java.
+ *
+ *  A full featured Muslim Prayer Times calculator
+ *
+ *  Most of the astronomical values and formulas used in this file are based
+ *  upon a subset of the VSOP87 planetary theory developed by Jean Meeus. Page
+ *  and formula numbers in-line below are references to his book: Astronomical
+ *  Algorithms. Willmann-Bell, second edition, 1998.
+ *
+ * (www.arabeyes.org - under LGPL license - see COPYING file)
+ ************************************************************************/
+
+package org.arabeyes.prayertime.jmh;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.arabeyes.prayertime.Method;
+import org.arabeyes.prayertime.PTLocation;
+import org.arabeyes.prayertime.Prayer;
+import org.arabeyes.prayertime.PrayerTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/* The prayer.highLatJune.extreme.* cases of BenchPrayerTime: the worst case
+   of the nearest good day methods, the "high" locations (up to 69 degrees)
+   in June 2015, where Fajr and Ishaa are invalid and the good day is
+   searched for the longest. Each operation is one day of one location,
+   cycling through the locations first. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class HighLatJuneBenchmark {
+    @Param({"4", "5"})
+    public int extreme;        /* Method.extreme */
+
+    private Prayer prayer;
+    private Method conf;
+    private PTLocation[] locs;
+    private Date[] dates;
+    private int i;
+
+    @Setup
+    public void setup()
+    {
+        prayer = new Prayer();
+        conf = BenchmarkData.getMethod(Method.MUSLIM_LEAGUE, extreme);
+        locs = BenchmarkData.getLocations("high");
+        dates = BenchmarkData.getDates(BenchmarkData.JUNE,
+                BenchmarkData.NB_JUNE_DATES);
+    }
+
+    @Benchmark
+    public PrayerTime[] prayerTimes()
+    {
+        i++;
+        return prayer.getPrayerTimes(locs[i % locs.length], conf,
+                dates[(i / locs.length) % dates.length]);
+    }
+}
@@ -0,0 +1,148 @@
+/************************************************************************
+ * ------------
+ * Description:
+ * ------------
+ *  Copyright (c) 2003-2006, 2009 Arabeyes, Thamer Mahmoud
+ *  Copyright (c) 2015, Djalel Chefrour, porting to Java.
+ *
+ *  A full featured Muslim Prayer Times calculator
+ *
+ *  Most of the astronomical values and formulas used in this file are based
+ *  upon a subset of the VSOP87 planetary theory developed by Jean Meeus. Page
+ *  and formula numbers in-line below are references to his book: Astronomical
+ *  Algorithms. Willmann-Bell, second edition, 1998.
+ *
+ * (www.arabeyes.org - under LGPL license - see COPYING file)
+ ************************************************************************/
+
+package org.arabeyes.prayertime.jmh;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.arabeyes.prayertime.DaySchedule;
+import org.arabeyes.prayertime.Method;
+import org.arabeyes.prayertime.PTLocation;
+import org.arabeyes.prayertime.Prayer;
+import org.arabeyes.prayertime.PrayerTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/* The prayer.* and schedule.* cases of BenchPrayerTime: one day of one
+   location per operation, cycling through the locations of "locations" and
+   the days of 2015. Every method is run with every extreme latitude method;
+   restrict them with e.g. "-p method=5 -p extreme=5". Run with "-prof gc"
+   for the allocations per operation (none for intArray); this is only
+   reported here, the check that fails when intArray allocates is
+   benchNoAllocation of BenchPrayerTime ("java BenchPrayerTime alloc"). See
+   HighLatJuneBenchmark for prayer.highLatJune.extreme.*. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class PrayerBenchmark {
+    @Param({"1", "2", "3", "4", "5", "6", "7", "8"})
+    public int method;         /* Method.setMethod */
+
+    @Param({"0", "1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11", "12",
+            "13", "14"})
+    public int extreme;        /* Method.extreme */
+
+    @Param({"all"})
+    public String locations;   /* low, mid, high or all */
+
+    private Prayer prayer;
+    private Method conf;
+    private PTLocation[] locs;
+    private Date[] dates;
+    private int[] times;
+    private int[] schedule;
+    private int i;
+
+    @Setup
+    public void setup()
+    {
+        prayer = new Prayer();
+        conf = BenchmarkData.getMethod(method, extreme);
+        locs = BenchmarkData.getLocations(locations);
+        dates = BenchmarkData.getDates();
+        times = new int[Prayer.NB_PRAYERS];
+        schedule = new int[DaySchedule.NB_TIMES];
+    }
+
+    @Benchmark
+    public int intArray()
+    {
+        i++;
+        return prayer.getPrayerTimes(locs[i % locs.length], conf,
+                dates[i % BenchmarkData.NB_DATES], times) + times[0];
+    }
+
+    @Benchmark
+    public PrayerTime[] prayerTimes()
+    {
+        i++;
+        return prayer.getPrayerTimes(locs[i % locs.length], conf,
+                dates[i % BenchmarkData.NB_DATES]);
+    }
+
+    @Benchmark
+    public PrayerTime imsaak()
+    {
+        i++;
+        return prayer.getImsaak(locs[i % locs.length], conf,
+                dates[i % BenchmarkData.NB_DATES]);
+    }
+
+    @Benchmark
+    public PrayerTime nextDayFajr()
+    {
+        i++;
+        return prayer.getNextDayFajr(locs[i % locs.length], conf,
+                dates[i % BenchmarkData.NB_DATES]);
+    }
+
+    @Benchmark
+    public PrayerTime nextDayImsaak()
+    {
+        i++;
+        return prayer.getNextDayImsaak(locs[i % locs.length], conf,
+                dates[i % BenchmarkData.NB_DATES]);
+    }
+
+    /* The prayers, Imsaak and next day's Fajr with separate calls... */
+    @Benchmark
+    public void scheduleSeparate(Blackhole bh)
+    {
+        PTLocation loc = locs[++i % locs.length];
+        Date date = dates[i % BenchmarkData.NB_DATES];
+
+        bh.consume(prayer.getPrayerTimes(loc, conf, date));
+        bh.consume(prayer.getImsaak(loc, conf, date));
+        bh.consume(prayer.getNextDayFajr(loc, conf, date));
+        bh.consume(prayer.getNextDayImsaak(loc, conf, date));
+    }
+
+    /* ... or in a single one */
+    @Benchmark
+    public int scheduleSingle()
+    {
+        i++;
+        prayer.getDaySchedule(locs[i % locs.length], conf,
+                BenchmarkData.START.toEpochDay() + i % BenchmarkData.NB_DATES,
+                schedule);
+        return schedule[0];
+    }
+}
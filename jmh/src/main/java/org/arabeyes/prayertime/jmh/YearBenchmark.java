@@ -0,0 +1,96 @@
+/************************************************************************
+ * ------------
+ * Description:
+ * ------------
+ *  Copyright (c) 2003-2006, 2009 Arabeyes, Thamer Mahmoud
+ *  Copyright (c) 2015, Djalel Chefrour, porting to Java.
+ *
+ *  A full featured Muslim Prayer Times calculator
+ *
+ *  Most of the astronomical values and formulas used in this file are based
+ *  upon a subset of the VSOP87 planetary theory developed by Jean Meeus. Page
+ *  and formula numbers in-line below are references to his book: Astronomical
+ *  Algorithms. Willmann-Bell, second edition, 1998.
+ *
+ * (www.arabeyes.org - under LGPL license - see COPYING file)
+ ************************************************************************/
+
+package org.arabeyes.prayertime.jmh;
+
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.arabeyes.prayertime.Method;
+import org.arabeyes.prayertime.PTLocation;
+import org.arabeyes.prayertime.PackedTimeTable;
+import org.arabeyes.prayertime.Prayer;
+import org.arabeyes.prayertime.PrayerTimeTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/* The year.* cases of BenchPrayerTime: one operation is a full year of one
+   location, with a new Prayer as a caller without a cache would do */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class YearBenchmark {
+    private static final ZoneId ZONE = ZoneId.of("Europe/Paris");
+
+    private Method conf;
+    private PTLocation[] locs;
+    private Date[] dates;
+    private int i;
+
+    @Setup
+    public void setup()
+    {
+        conf = BenchmarkData.getMethod(Method.MUSLIM_LEAGUE, 5);
+        locs = BenchmarkData.getLocations("all");
+        dates = BenchmarkData.getDates();
+    }
+
+    @Benchmark
+    public void dayLoop(Blackhole bh)
+    {
+        int d;
+        Prayer prayer = new Prayer();
+        PTLocation loc = locs[i++ % locs.length];
+
+        for (d = 0; d < BenchmarkData.NB_DATES; d++)
+            bh.consume(prayer.getPrayerTimes(loc, conf, dates[d]));
+    }
+
+    @Benchmark
+    public PrayerTimeTable range()
+    {
+        return new Prayer().getPrayerTimesForRange(locs[i++ % locs.length],
+                conf, dates[0], BenchmarkData.NB_DATES);
+    }
+
+    @Benchmark
+    public PrayerTimeTable zoneRange()
+    {
+        return new Prayer().getPrayerTimesForRange(locs[i++ % locs.length],
+                conf, ZONE, BenchmarkData.START, BenchmarkData.NB_DATES);
+    }
+
+    @Benchmark
+    public PackedTimeTable packedRange()
+    {
+        return new Prayer().getPackedTimesForRange(locs[i++ % locs.length],
+                conf, BenchmarkData.START, BenchmarkData.NB_DATES);
+    }
+}
@@ -18,16 +18,16 @@
 package org.arabeyes.prayertime;
 
 import java.lang.Math;
+import java.time.LocalDate;
 import java.util.Date;
-import java.util.Calendar;
-import java.util.GregorianCalendar;
+import java.util.TimeZone;
 
 enum SunEvent {
     SUNRISE,
     SUNSET
 }
 
-public class AstroDay {
+public class AstroDay implements Ephemeris {
 
     /*
     private static final double[][] DT = {
@@ -71,6 +71,9 @@ public class AstroDay {
         {56.9, 58.3, 60, 61.6, 63}, /* 1990-1998 */
     /* };  */
 
+    private static final int GREGORIAN_YEAR = 1582;
+    private static final long GREGORIAN_EPOCH_DAY = -141427;   /* 1582-10-15 */
+
     private static final double[] DT2 = {
         63.4673, 63.8285, 64.0908, 64.2998, 64.4734, /* 1999-2003 */
         64.5736, 64.7052, 64.8452, 65.1464, 65.4574, /* 2004-2008 */
@@ -446,12 +449,124 @@ public class AstroDay {
         {2, -1, 0, 2, 2}
     };
 
-    private double dec;
-    private double ra;
-    private double sidtime;
-    private double dra;
-    private double rsum;
-    
+    /* Minimal amplitudes of the VSOP87 terms (10^-8 radian or AU) and of the
+     * nutation terms (0.0001") kept by each precision tier (Method.precision) */
+    private static final double[] MIN_AMPLITUDE = {0, 200, 4000};
+    private static final double[] MIN_NUTATION = {0, 100, 5000};
+
+    /* The refraction at the altitude of the Sun's upper limb at rise and set,
+     * at 1010 millibars and 10 degrees (used by Method.PRECISION_FAST) */
+    private static final double HORIZON_REFRACTION = 1.02 / (Angle.RAD_TO_DEG(
+                Math.tan(Angle.DEG_TO_RAD(Angle.CENTER_OF_SUN_ANGLE + (10.3/
+                            (Angle.CENTER_OF_SUN_ANGLE + 5.11))))) + 0.0019279);
+
+    /* The series above as columns, for SeriesEvaluator. The lower precision
+     * tiers only keep the terms of amplitude MIN_AMPLITUDE (or MIN_NUTATION)
+     * or more. */
+    private static final class Series {
+        final double[][] L0, L1, L2, L3, L4, L5, B0, B1, R0, R1, R2, R3, R4;
+        final double[][] PN, COEFF;
+
+        Series(double minAmp, double minNut)
+        {
+            L0 = toColumns(AstroDay.L0, minAmp);
+            L1 = toColumns(AstroDay.L1, minAmp);
+            L2 = toColumns(AstroDay.L2, minAmp);
+            L3 = toColumns(AstroDay.L3, minAmp);
+            L4 = toColumns(AstroDay.L4, minAmp);
+            L5 = toColumns(AstroDay.L5, minAmp);
+            B0 = toColumns(AstroDay.B0, minAmp);
+            B1 = toColumns(AstroDay.B1, minAmp);
+            R0 = toColumns(AstroDay.R0, minAmp);
+            R1 = toColumns(AstroDay.R1, minAmp);
+            R2 = toColumns(AstroDay.R2, minAmp);
+            R3 = toColumns(AstroDay.R3, minAmp);
+            R4 = toColumns(AstroDay.R4, minAmp);
+            PN = toColumns(AstroDay.PN, AstroDay.PN, minNut);
+            COEFF = toColumns(AstroDay.COEFF, AstroDay.PN, minNut);
+        }
+    }
+
+    private static final Series[] SERIES = new Series[MIN_AMPLITUDE.length];
+    static {
+        for (int i = 0; i < SERIES.length; i++)
+            SERIES[i] = new Series(MIN_AMPLITUDE[i], MIN_NUTATION[i]);
+    }
+
+    private final Ephemeris ephemeris;
+    private final SeriesEvaluator series;
+    private final int precision;      /* tier of Method.precision */
+
+    /* Keeps the terms whose first value is at least "minAmp" (absolute) */
+    private static double[][] toColumns(double[][] rows, double minAmp)
+    {
+        int i, j, n = 0;
+        double[][] cols = new double[rows[0].length][];
+
+        for (i = 0; i < rows.length; i++)
+            if (Math.abs(rows[i][0]) >= minAmp)
+                n++;
+        for (j = 0; j < cols.length; j++)
+            cols[j] = new double[n];
+        for (i = 0, n = 0; i < rows.length; i++)
+            if (Math.abs(rows[i][0]) >= minAmp) {
+                for (j = 0; j < rows[i].length; j++)
+                    cols[j][n] = rows[i][j];
+                n++;
+            }
+        return cols;
+    }
+
+    /* Keeps the rows "i" of the nutation terms where either the longitude or
+     * the obliquity amplitude of "pn[i]" is at least "minNut" */
+    private static double[][] toColumns(double[][] rows, double[][] pn, double minNut)
+    {
+        int i, j, n = 0;
+        double[][] cols = new double[rows[0].length][];
+
+        for (i = 0; i < rows.length; i++)
+            if (isDominant(pn[i], minNut))
+                n++;
+        for (j = 0; j < cols.length; j++)
+            cols[j] = new double[n];
+        for (i = 0, n = 0; i < rows.length; i++)
+            if (isDominant(pn[i], minNut)) {
+                for (j = 0; j < rows[i].length; j++)
+                    cols[j][n] = rows[i][j];
+                n++;
+            }
+        return cols;
+    }
+
+    private static double[][] toColumns(int[][] rows, double[][] pn, double minNut)
+    {
+        int i, j, n = 0;
+        double[][] cols = new double[rows[0].length][];
+
+        for (i = 0; i < rows.length; i++)
+            if (isDominant(pn[i], minNut))
+                n++;
+        for (j = 0; j < cols.length; j++)
+            cols[j] = new double[n];
+        for (i = 0, n = 0; i < rows.length; i++)
+            if (isDominant(pn[i], minNut)) {
+                for (j = 0; j < rows[i].length; j++)
+                    cols[j][n] = rows[i][j];
+                n++;
+            }
+        return cols;
+    }
+
+    private static boolean isDominant(double[] pn, double minNut)
+    {
+        return Math.abs(pn[0]) >= minNut || Math.abs(pn[2]) >= minNut;
+    }
+
+    private double cosSum(double[][] cols, double x)
+    {
+        return series.cosSum(cols[0], cols[1], cols[2], x);
+    }
+
     private double limitAngle180(double L)
     {
         double F;
@@ -498,9 +613,11 @@ public class AstroDay {
         return F;
     }
 
-    private void computeAstroDay(double JD)
+    /* Computes the geocentric values of the Sun for the Julian day "JD" with
+     * the VSOP87 series and stores them in the day "i" of the structure
+     * "astro" */
+    public void computeAstroDay(double JD, AstroValues astro, int i)
     {
-        int i =0;
         double R, Gg, rGg, G;
 
         double tL, L;
@@ -516,7 +633,6 @@ public class AstroDay {
         double R0sum=0, R1sum=0, R2sum=0, R3sum=0, R4sum=0;
         double L0sum=0, L1sum=0, L2sum=0, L3sum=0, L4sum=0, L5sum=0;
 
-        double PNsum=0, psi=0, epsilon=0;
         double deltaPsi, deltaEps;
 
         double JC = (JD - 2451545)/36525.0;                                             
@@ -533,17 +649,14 @@ public class AstroDay {
 
         double T = (JDE - 2451545)/36525.0;
 
-        for(i=0; i < 64; i++)
-            L0sum += L0[i][0] * Math.cos(L0[i][1] + L0[i][2] * JM);
-        for(i=0; i < 34; i++)
-            L1sum += L1[i][0] * Math.cos(L1[i][1] + L1[i][2] * JM);
-        for(i=0; i < 20; i++)
-            L2sum += L2[i][0] * Math.cos(L2[i][1] + L2[i][2] * JM);
-        for(i=0; i < 7; i++)
-            L3sum += L3[i][0] * Math.cos(L3[i][1] + L3[i][2] * JM);
-        for(i=0; i < 3; i++)
-            L4sum += L4[i][0] * Math.cos(L4[i][1] + L4[i][2] * JM);
-        L5sum = L5[0][0] * Math.cos(L5[0][1] + L5[0][2] * JM);
+        Series terms = SERIES[precision];
+
+        L0sum = cosSum(terms.L0, JM);
+        L1sum = cosSum(terms.L1, JM);
+        L2sum = cosSum(terms.L2, JM);
+        L3sum = cosSum(terms.L3, JM);
+        L4sum = cosSum(terms.L4, JM);
+        L5sum = cosSum(terms.L5, JM);
 
 
         tL = (L0sum + (L1sum * JM) + (L2sum * JM2) 
@@ -552,25 +665,19 @@ public class AstroDay {
 
         L = limitAngle(Angle.RAD_TO_DEG(tL));
 
-        for(i=0; i<5; i++)
-            B0sum += B0[i][0] * Math.cos(B0[i][1] + B0[i][2] * JM);
-        for(i=0; i<2; i++)
-            B1sum += B1[i][0] * Math.cos(B1[i][1] + B1[i][2] * JM);
+        B0sum = cosSum(terms.B0, JM);
+        B1sum = cosSum(terms.B1, JM);
 
 
         tB= (B0sum + (B1sum * JM)) / Math.pow (10, 8);
         B = Angle.RAD_TO_DEG(tB);
 
 
-        for(i=0; i < 40; i++)
-            R0sum += R0[i][0] * Math.cos(R0[i][1] + R0[i][2] * JM);
-        for(i=0; i < 10; i++)
-            R1sum += R1[i][0] * Math.cos(R1[i][1] + R1[i][2] * JM);
-        for(i=0; i < 6; i++)
-            R2sum += R2[i][0] * Math.cos(R2[i][1] + R2[i][2] * JM);
-        for(i=0; i < 2; i++)
-            R3sum += R3[i][0] * Math.cos(R3[i][1] + R3[i][2] * JM);
-        R4sum = R4[0][0] * Math.cos(R4[0][1] + R4[0][2] * JM);
+        R0sum = cosSum(terms.R0, JM);
+        R1sum = cosSum(terms.R1, JM);
+        R2sum = cosSum(terms.R2, JM);
+        R3sum = cosSum(terms.R3, JM);
+        R4sum = cosSum(terms.R4, JM);
 
         R = (R0sum + (R1sum * JM) + (R2sum * JM2)
                 + (R3sum * JM3) + (R4sum * JM4)) / Math.pow (10, 8);
@@ -590,20 +697,11 @@ public class AstroDay {
         O = 125.04452 - (1934.136261 * T) + (0.0020708 * Math.pow (T, 2)) +  
             (Math.pow (T, 3)/450000.0);
         /* Add the terms (pp. 144-6) */
-        for (i=0; i<63; i++) {
-            PNsum += D  * COEFF[i][0];
-            PNsum += M  * COEFF[i][1];
-            PNsum += M1 * COEFF[i][2];
-            PNsum += F  * COEFF[i][3];
-            PNsum += O  * COEFF[i][4];
-            psi     += (PN[i][0] + JC*PN[i][1])*Math.sin(Angle.DEG_TO_RAD(PNsum));
-            epsilon += (PN[i][2] + JC*PN[i][3])*Math.cos(Angle.DEG_TO_RAD(PNsum));
-            PNsum=0;
-        }
-
-        deltaPsi = psi/36000000.0;
+        deltaPsi = series.nutation(terms.COEFF, terms.PN[0], terms.PN[1], D, M, M1, F, O, JC, true)
+            /36000000.0;
         /* Nutation in obliquity */
-        deltaEps = epsilon/36000000.0;
+        deltaEps = series.nutation(terms.COEFF, terms.PN[2], terms.PN[3], D, M, M1, F, O, JC, false)
+            /36000000.0;
 
         /* The obliquity of the ecliptic (p. 147, 22.3) */
         U = JM/10.0;
@@ -630,11 +728,11 @@ public class AstroDay {
         DEC = Math.asin( Math.sin(rGg) * Math.cos(rE) + Math.cos(rGg) * Math.sin(rE) * 
                 Math.sin(rLambda));
 
-        this.ra = RA;
-        this.dec = DEC;
-        this.sidtime = V;
-        this.dra = 0;
-        this.rsum = R;
+        astro.ra[i] = RA;
+        astro.dec[i] = DEC;
+        astro.sid[i] = V;
+        astro.dra[i] = 0;
+        astro.rsum[i] = R;
     }
 
     private void computeTopAstro(PTLocation loc, AstroValues astro, AstroValues topAstro)
@@ -642,8 +740,34 @@ public class AstroDay {
         int i;
         double lHour, SP, rlHour, rLat;
         double tU, tpCos, tpSin, tRA0 ,tRA ,tDEC;
+        PreparedLocation prepared;
+
+        if (precision == Method.PRECISION_FAST)
+        {
+            /* Geocentric values only: the parallax of the Sun is below 9" */
+            for (i=0; i<3; i++)
+            {
+                topAstro.ra[i] = astro.ra[i];
+                topAstro.dec[i] = Angle.RAD_TO_DEG(astro.dec[i]);
+                topAstro.sid[i] = astro.sid[i];
+                topAstro.dra[i] = 0;
+                topAstro.rsum[i] = astro.rsum[i];
+            }
+            return;
+        }
 
-        rLat = Angle.DEG_TO_RAD(loc.degreeLat);
+        /* (p. 82, with b/a = 0.99664719) */
+        prepared = PreparedLocation.getPrepared(loc);
+        if (prepared != null) {
+            tpSin = prepared.tpSin;
+            tpCos = prepared.tpCos;
+        } else {
+            rLat = Angle.DEG_TO_RAD(loc.degreeLat);
+            tU = Math.atan (0.99664719 * Math.tan(rLat));
+            tpSin = 0.99664719 * Math.sin(tU) + (loc.seaLevel/Angle.EARTH_RADIUS) * 
+                Math.sin(rLat);
+            tpCos = Math.cos(tU) + (loc.seaLevel/Angle.EARTH_RADIUS) * Math.cos(rLat);
+        }
 
         for (i=0; i<3; i++)
         {
@@ -652,14 +776,6 @@ public class AstroDay {
 
             SP = Angle.DEG_TO_RAD (8.794/(3600 * astro.rsum[i]));
 
-            /* (p. 82, with b/a = 0.99664719) */
-            tU = Math.atan (0.99664719 * Math.tan(rLat));
-
-            tpSin = 0.99664719 * Math.sin(tU) + (loc.seaLevel/Angle.EARTH_RADIUS) * 
-                Math.sin(rLat);
-
-            tpCos = Math.cos(tU) + (loc.seaLevel/Angle.EARTH_RADIUS) * Math.cos(rLat);
-
             /* (p. 297, 40.2) */
             tRA0 = (((-tpCos) * Math.sin(SP) * Math.sin(rlHour)) / (Math.cos(astro.dec[i]) - 
                         tpCos * Math.sin(SP) * Math.cos(rlHour)));
@@ -679,11 +795,16 @@ public class AstroDay {
         }
     }
 
-    private double getRefraction(PTLocation loc, double sunAlt)
+    private double getRefraction(PTLocation loc, PreparedLocation prepared,
+                                 double sunAlt)
     {
         double part1, part2;
 
-        part1 = (loc.pressure/1010.0) * (283/(273 + loc.temperature));
+        if (prepared != null)
+            part1 = prepared.refraction;
+        else part1 = (loc.pressure/1010.0) * (283/(273 + loc.temperature));
+        if (precision == Method.PRECISION_FAST)
+            return (part1 * HORIZON_REFRACTION) / 60.0;
         part2 = 1.02 / (Angle.RAD_TO_DEG(Math.tan(Angle.DEG_TO_RAD(sunAlt + (10.3/(sunAlt + 5.11))))) + 0.0019279);
 
         return (part1 * part2) / 60.0;
@@ -693,18 +814,25 @@ public class AstroDay {
     {
         /* p. 101 */
         double lhour, M, sidG, ra0, ra2;
-        double A, B, H, sunAlt, delM, tH, rDec, rLat, rB;
+        double A, B, H, sunAlt, delM, tH, rDec, sinLat, cosLat, rB;
         double part1, part2, part3;
+        PreparedLocation prepared = PreparedLocation.getPrepared(loc);
 
         rDec = Angle.DEG_TO_RAD(tastro.dec[1]);
-        rLat = Angle.DEG_TO_RAD(loc.degreeLat);
+        if (prepared != null) {
+            sinLat = prepared.sinLat;
+            cosLat = prepared.cosLat;
+        } else {
+            sinLat = Math.sin(Angle.DEG_TO_RAD(loc.degreeLat));
+            cosLat = Math.cos(Angle.DEG_TO_RAD(loc.degreeLat));
+        }
 
         ra0=tastro.ra[0];
         ra2=tastro.ra[2];
 
         /* Compute the hour angle */
-        part1 = Math.sin(Angle.DEG_TO_RAD(Angle.CENTER_OF_SUN_ANGLE)) - (Math.sin(rLat) * Math.sin(rDec));
-        part2 = Math.cos(rLat) * Math.cos(rDec);
+        part1 = Math.sin(Angle.DEG_TO_RAD(Angle.CENTER_OF_SUN_ANGLE)) - (sinLat * Math.sin(rDec));
+        part2 = cosLat * Math.cos(rDec);
         part3 = part1 / part2;
 
         if  ( part3 < -Angle.INVALID_TRIGGER || part3 > Angle.INVALID_TRIGGER)
@@ -750,14 +878,14 @@ public class AstroDay {
         tH =  Angle.DEG_TO_RAD(H) - tastro.dra[1];
 
         /* Airless Sun's altitude at local horizontal coordinates (p. 93, 13.6) */
-        sunAlt = Angle.RAD_TO_DEG(Math.asin(  Math.sin(rLat) * Math.sin(rB) 
-                    + Math.cos(rLat) * Math.cos(rB) 
+        sunAlt = Angle.RAD_TO_DEG(Math.asin(  sinLat * Math.sin(rB) 
+                    + cosLat * Math.cos(rB) 
                     * Math.cos(tH) ));
 
-        sunAlt += getRefraction(loc, sunAlt);
+        sunAlt += getRefraction(loc, prepared, sunAlt);
 
         /* (p. 103) */
-        delM = (sunAlt - Angle.CENTER_OF_SUN_ANGLE) / (360.0 * Math.cos(rB) * Math.cos(rLat)
+        delM = (sunAlt - Angle.CENTER_OF_SUN_ANGLE) / (360.0 * Math.cos(rB) * cosLat
                 * Math.sin(tH));
 
         return  (M + delM) * 24.0;
@@ -845,21 +973,150 @@ public class AstroDay {
 
     public AstroDay()
     {
+        this(null, Method.PRECISION_FULL, SeriesEvaluator.getDefault());
+    }
+
+    /* Computes with the precision tier "precision" (see Method.precision) */
+    public AstroDay(int precision)
+    {
+        this(null, precision, SeriesEvaluator.getDefault());
+    }
 
+    /* Uses "eph" instead of the VSOP87 series for the geocentric values */
+    public AstroDay(Ephemeris eph)
+    {
+        this(eph, Method.PRECISION_FULL, SeriesEvaluator.getDefault());
+    }
+
+    /* Same as above with the precision tier "precision". Only the
+       topocentric and refraction simplifications of the tier apply to the
+       values of "eph" (see Method.precision). */
+    public AstroDay(Ephemeris eph, int precision)
+    {
+        this(eph, precision, SeriesEvaluator.getDefault());
+    }
+
+    AstroDay(SeriesEvaluator series)
+    {
+        this(null, Method.PRECISION_FULL, series);
+    }
+
+    private AstroDay(Ephemeris eph, int precision, SeriesEvaluator series)
+    {
+        this.ephemeris = (eph != null) ? eph : this;
+        this.precision = getTier(precision);
+        this.series = series;
+    }
+
+    public int getPrecision()
+    {
+        return precision;
+    }
+
+    /* Unknown precision tiers are handled as Method.PRECISION_FULL */
+    static int getTier(int precision)
+    {
+        if (precision < Method.PRECISION_FULL || precision > Method.PRECISION_FAST)
+            return Method.PRECISION_FULL;
+        return precision;
+    }
+
+    /* Returns the name of the evaluator of the VSOP87 and nutation series:
+       "scalar", or "vector" followed by the number of lanes */
+    public static String getSeriesEvaluator()
+    {
+        return SeriesEvaluator.getDefault().getName();
     }
 
     /* Returns the astronomical Julian day (for local time with delta-t) */
     public static double getJulianDay(Date date, double gmt)
     {
-        double jdB=0, jdY, jdM, JD;
-        int day, month, year;
+        return getJulianDay(getEpochDay(date), gmt);
+    }
 
-        GregorianCalendar cal = new GregorianCalendar();
+    public static double getJulianDay(LocalDate date, double gmt)
+    {
+        return getJulianDay(date.toEpochDay(), gmt);
+    }
 
-        cal.setTime(date);
-        day = cal.get(Calendar.DATE);
-        month = cal.get(Calendar.MONTH) + 1;
-        year = cal.get(Calendar.YEAR);
+    /* Same as above for the day "epochDay" (days since 1970-01-01, as in
+       LocalDate.toEpochDay), without any calendar object */
+    public static double getJulianDay(long epochDay, double gmt)
+    {
+        long ymd = getDate(epochDay);
+
+        return getJulianDay((int)(ymd >> 16), (int)(ymd >> 8) & 0xff,
+                (int)ymd & 0xff, gmt);
+    }
+
+    /* Returns the day of "date" in the default time zone (as for a
+       GregorianCalendar) as days since 1970-01-01 */
+    static long getEpochDay(Date date)
+    {
+        return getEpochDay(date, TimeZone.getDefault());
+    }
+
+    static long getEpochDay(Date date, TimeZone zone)
+    {
+        long time = date.getTime();
+
+        return Math.floorDiv(time + zone.getOffset(time), 86400000L);
+    }
+
+    /* Returns the year of the day "epochDay" (see getDate) */
+    static int getYear(long epochDay)
+    {
+        return (int)(getDate(epochDay) >> 16);
+    }
+
+    /* Returns the number of days of "year", which is 355 for the year of the
+       Gregorian reform (see getDate) */
+    static int getDaysInYear(int year)
+    {
+        if (year > GREGORIAN_YEAR)
+            return ((year % 4 == 0 && year % 100 != 0) || year % 400 == 0) ? 366 : 365;
+        if (year < GREGORIAN_YEAR)
+            return (year % 4 == 0) ? 366 : 365;
+        return 355;
+    }
+
+    /* Converts the day "epochDay" to a date packed as (year << 16) |
+       (month << 8) | day. Like GregorianCalendar, days before 1582-10-15 are
+       given in the Julian calendar (year 0 is 1 BC). */
+    private static long getDate(long epochDay)
+    {
+        long z, era, doe, yoe, doy, mp, year, month, day;
+
+        if (epochDay >= GREGORIAN_EPOCH_DAY) {
+            /* Gregorian calendar: 400 year eras starting on March 1st */
+            z = epochDay + 719468;
+            era = Math.floorDiv(z, 146097);
+            doe = z - era * 146097;
+            yoe = (doe - doe/1460 + doe/36524 - doe/146096) / 365;
+            doy = doe - (365*yoe + yoe/4 - yoe/100);
+            year = yoe + era * 400;
+        } else {
+            /* Julian calendar: 4 year cycles starting on March 1st */
+            z = epochDay + 719470;
+            era = Math.floorDiv(z, 1461);
+            doe = z - era * 1461;
+            yoe = (doe - doe/1460) / 365;
+            doy = doe - 365*yoe;
+            year = yoe + era * 4;
+        }
+        mp = (5*doy + 2) / 153;
+        day = doy - (153*mp + 2)/5 + 1;
+        month = (mp < 10) ? mp + 3 : mp - 9;
+        if (month <= 2)
+            year++;
+
+        return (year << 16) | (month << 8) | day;
+    }
+
+    /* Same as above for the given year, month (1-12) and day of month */
+    public static double getJulianDay(int year, int month, int day, double gmt)
+    {
+        double jdB=0, jdY, jdM, JD;
 
         jdY=year;
         jdM=month;
@@ -903,12 +1160,7 @@ public class AstroDay {
             astro.rsum[0] = astro.rsum[1];
             astro.rsum[1] = astro.rsum[2];
             /* Compute next day values */
-            computeAstroDay(julianDay+1);
-            astro.ra[2] = this.ra;
-            astro.dec[2] = this.dec;
-            astro.sid[2] = this.sidtime;
-            astro.dra[2] = this.dra;
-            astro.rsum[2] = this.rsum;
+            ephemeris.computeAstroDay(julianDay+1, astro, 2);
         }
         else if (astro.jd == julianDay + 1)
         {
@@ -924,34 +1176,14 @@ public class AstroDay {
             astro.rsum[2] = astro.rsum[1];
             astro.rsum[1] = astro.rsum[0];
             /* Compute previous day values */
-            computeAstroDay(julianDay-1);
-            astro.ra[0] = this.ra;
-            astro.dec[0] = this.dec;
-            astro.sid[0] = this.sidtime;
-            astro.dra[0] = this.dra;
-            astro.rsum[0] = this.rsum;
+            ephemeris.computeAstroDay(julianDay-1, astro, 0);
         } 
         else if (astro.jd != julianDay)
         {
             /* Compute 3 day values */
-            computeAstroDay(julianDay-1);
-            astro.ra[0] = this.ra;
-            astro.dec[0] = this.dec;
-            astro.sid[0] = this.sidtime;
-            astro.dra[0] = this.dra;
-            astro.rsum[0] = this.rsum;
-            computeAstroDay(julianDay);
-            astro.ra[1] = this.ra;
-            astro.dec[1] = this.dec;
-            astro.sid[1] = this.sidtime;
-            astro.dra[1] = this.dra;
-            astro.rsum[1] = this.rsum;
-            computeAstroDay(julianDay+1);
-            astro.ra[2] = this.ra;
-            astro.dec[2] = this.dec;
-            astro.sid[2] = this.sidtime;
-            astro.dra[2] = this.dra;
-            astro.rsum[2] = this.rsum;
+            ephemeris.computeAstroDay(julianDay-1, astro, 0);
+            ephemeris.computeAstroDay(julianDay, astro, 1);
+            ephemeris.computeAstroDay(julianDay+1, astro, 2);
         }
 
         astro.jd = julianDay;
@@ -47,4 +47,15 @@ public class AstroValues {
         this.dra = Arrays.copyOf(v.dra, v.dra.length);
         this.rsum = Arrays.copyOf(v.rsum, v.rsum.length);
     }
+
+    /* Copies the values of "v" into this structure */
+    public void set(AstroValues v)
+    {
+        this.jd = v.jd;
+        System.arraycopy(v.dec, 0, this.dec, 0, NB_DAYS);
+        System.arraycopy(v.ra, 0, this.ra, 0, NB_DAYS);
+        System.arraycopy(v.sid, 0, this.sid, 0, NB_DAYS);
+        System.arraycopy(v.dra, 0, this.dra, 0, NB_DAYS);
+        System.arraycopy(v.rsum, 0, this.rsum, 0, NB_DAYS);
+    }
 }
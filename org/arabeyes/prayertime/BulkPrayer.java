@@ -0,0 +1,219 @@
+/************************************************************************
+ * ------------
+ * Description:
+ * ------------
+ *  Copyright (c) 2003-2006, 2009 Arabeyes, Thamer Mahmoud
+ *  Copyright (c) 2015, Djalel Chefrour conversion to Java.
+ *
+ *  A full featured Muslim Prayer Times calculator
+ *
+ *  Most of the astronomical values and formulas used in this file are based
+ *  upon a subset of the VSOP87 planetary theory developed by Jean Meeus. Page
+ *  and formula numbers in-line below are references to his book: Astronomical
+ *  Algorithms. Willmann-Bell, second edition, 1998.
+ *
+ * (www.arabeyes.org - under LGPL license - see COPYING file)
+ ************************************************************************/
+
+package org.arabeyes.prayertime;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/* Computes the prayer times of one date for many locations at once.
+
+   The geocentric values of the Sun depend only on the Julian day, which for
+   a given date only changes with the GMT difference. They are computed once
+   for each distinct GMT difference, and the work left for each location
+   (topocentric values, sunrise/sunset, Fajr/Ishaa and Assr) is split over
+   the threads of a fork/join pool.
+
+   Locations are given as columns of primitive values. They use the standard
+   atmosphere (1010 mb, 10 C) and no daylight saving time. Results are given
+   like the int[] variant of Prayer.getPrayerTimes, in columns:
+    - times[0][i]     is the Fajr time of location i in seconds since local
+                      midnight (or Prayer.INVALID_TIME)
+    - ... and so on until times[5][i] for Ishaa
+    - extreme[i]      is the extreme calculation bit mask of location i
+   All the columns must have as many values as "lat". */
+public final class BulkPrayer {
+    private static final int DEF_CHUNK_SIZE = 256;
+
+    private final ForkJoinPool pool;
+    private final Ephemeris[] ephemeris;   /* by precision tier */
+    private final int chunkSize;
+    private final ThreadLocal<Prayer> prayer;
+
+    public BulkPrayer()
+    {
+        this(ForkJoinPool.commonPool(), null, DEF_CHUNK_SIZE);
+    }
+
+    /* Uses the threads of "pool", and "eph" for the geocentric values of the
+       Sun (null for VSOP87, see Method.precision). Each task computes at most
+       "chunkSize" locations. */
+    public BulkPrayer(ForkJoinPool pool, Ephemeris eph, int chunkSize)
+    {
+        int i;
+
+        this.pool = pool;
+        this.ephemeris = new Ephemeris[Method.PRECISION_FAST + 1];
+        for (i = 0; i < ephemeris.length; i++) {
+            if (eph != null)
+                ephemeris[i] = eph;
+            else ephemeris[i] = new AstroDay(i);
+        }
+        this.chunkSize = Math.max(chunkSize, 1);
+        this.prayer = ThreadLocal.withInitial(() -> new Prayer(eph));
+    }
+
+    public void getPrayerTimes(double[] lat, double[] lon, double[] seaLevel,
+                               double[] gmtDiff, Method conf, Date date,
+                               int[][] times, int[] extreme)
+    {
+        getPrayerTimes(lat, lon, seaLevel, gmtDiff, conf,
+                AstroDay.getEpochDay(date), times, extreme);
+    }
+
+    public void getPrayerTimes(double[] lat, double[] lon, double[] seaLevel,
+                               double[] gmtDiff, Method conf, LocalDate date,
+                               int[][] times, int[] extreme)
+    {
+        getPrayerTimes(lat, lon, seaLevel, gmtDiff, conf, date.toEpochDay(),
+                times, extreme);
+    }
+
+    /* Same as above for the day "epochDay" (see LocalDate.toEpochDay) */
+    public void getPrayerTimes(double[] lat, double[] lon, double[] seaLevel,
+                               double[] gmtDiff, Method conf, long epochDay,
+                               int[][] times, int[] extreme)
+    {
+        int i, lastDayOfYear;
+        int[] group;
+        double jd;
+        Integer g;
+        AstroValues astro;
+        List<AstroValues> astros = new ArrayList<AstroValues>();
+        HashMap<Double, Integer> groups = new HashMap<Double, Integer>();
+        Ephemeris eph = ephemeris[AstroDay.getTier(conf.precision)];
+
+        checkLengths(lat, lon, seaLevel, gmtDiff, times, extreme);
+        group = new int[lat.length];
+        lastDayOfYear = AstroDay.getDaysInYear(AstroDay.getYear(epochDay));
+
+        /* Geocentric values of the 3 days around each distinct Julian day */
+        for (i = 0; i < lat.length; i++)
+        {
+            g = groups.get(gmtDiff[i]);
+            if (g == null) {
+                jd = AstroDay.getJulianDay(epochDay, gmtDiff[i]);
+                astro = new AstroValues();
+
+                eph.computeAstroDay(jd - 1, astro, 0);
+                eph.computeAstroDay(jd, astro, 1);
+                eph.computeAstroDay(jd + 1, astro, 2);
+                astro.jd = jd;
+
+                g = astros.size();
+                astros.add(astro);
+                groups.put(gmtDiff[i], g);
+            }
+            group[i] = g;
+        }
+
+        pool.invoke(new Task(lat, lon, seaLevel, gmtDiff, conf, group,
+                    astros.toArray(new AstroValues[0]), lastDayOfYear,
+                    times, extreme, 0, lat.length));
+    }
+
+    private static void checkLengths(double[] lat, double[] lon,
+                                     double[] seaLevel, double[] gmtDiff,
+                                     int[][] times, int[] extreme)
+    {
+        int j, n = lat.length;
+
+        if (lon.length != n || seaLevel.length != n || gmtDiff.length != n)
+            throw new IllegalArgumentException("lat, lon, seaLevel and gmtDiff of different lengths");
+        if (extreme.length != n)
+            throw new IllegalArgumentException("extreme of length " +
+                    extreme.length + " instead of " + n);
+        if (times.length != Prayer.NB_PRAYERS)
+            throw new IllegalArgumentException("times of length " +
+                    times.length + " instead of " + Prayer.NB_PRAYERS);
+        for (j = 0; j < Prayer.NB_PRAYERS; j++)
+            if (times[j].length != n)
+                throw new IllegalArgumentException("times[" + j + "] of length " +
+                        times[j].length + " instead of " + n);
+    }
+
+    private final class Task extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final double[] lat, lon, seaLevel, gmtDiff;
+        private final Method conf;
+        private final int[] group;
+        private final AstroValues[] astros;
+        private final int lastDayOfYear;
+        private final int[][] times;
+        private final int[] extreme;
+        private final int from, to;
+
+        Task(double[] lat, double[] lon, double[] seaLevel, double[] gmtDiff,
+             Method conf, int[] group, AstroValues[] astros, int lastDayOfYear,
+             int[][] times, int[] extreme, int from, int to)
+        {
+            this.lat = lat;
+            this.lon = lon;
+            this.seaLevel = seaLevel;
+            this.gmtDiff = gmtDiff;
+            this.conf = conf;
+            this.group = group;
+            this.astros = astros;
+            this.lastDayOfYear = lastDayOfYear;
+            this.times = times;
+            this.extreme = extreme;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute()
+        {
+            int i, j, mid;
+            int[] t;
+            Prayer p;
+            PTLocation loc;
+
+            if (to - from > chunkSize) {
+                mid = (from + to) >>> 1;
+                invokeAll(new Task(lat, lon, seaLevel, gmtDiff, conf, group, astros,
+                            lastDayOfYear, times, extreme, from, mid),
+                        new Task(lat, lon, seaLevel, gmtDiff, conf, group, astros,
+                            lastDayOfYear, times, extreme, mid, to));
+                return;
+            }
+
+            p = prayer.get();
+            loc = new PTLocation(0, 0, 0, 0, 0, 1010, 10);
+            t = new int[Prayer.NB_PRAYERS];
+
+            for (i = from; i < to; i++)
+            {
+                loc.degreeLat = lat[i];
+                loc.degreeLong = lon[i];
+                loc.seaLevel = seaLevel[i];
+                loc.gmtDiff = gmtDiff[i];
+
+                extreme[i] = p.getPrayerTimes(loc, conf, astros[group[i]],
+                        lastDayOfYear, t);
+                for (j = 0; j < Prayer.NB_PRAYERS; j++)
+                    times[j][i] = t[j];
+            }
+        }
+    }
+}
@@ -0,0 +1,224 @@
+/************************************************************************
+ * ------------
+ * Description:
+ * ------------
+ *  Copyright (c) 2003-2006, 2009 Arabeyes, Thamer Mahmoud
+ *  Copyright (c) 2015, Djalel Chefrour conversion to Java.
+ *
+ *  A full featured Muslim Prayer Times calculator
+ *
+ *  Most of the astronomical values and formulas used in this file are based
+ *  upon a subset of the VSOP87 planetary theory developed by Jean Meeus. Page
+ *  and formula numbers in-line below are references to his book: Astronomical
+ *  Algorithms. Willmann-Bell, second edition, 1998.
+ *
+ * (www.arabeyes.org - under LGPL license - see COPYING file)
+ ************************************************************************/
+
+package org.arabeyes.prayertime;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.zip.CRC32;
+
+/* Reads a calendar written by CalendarWriter. The file is mapped in memory
+   and only the block of the requested day is decoded (at most
+   CalendarWriter.DEF_BLOCK_DAYS days), after checking its CRC32. The
+   header and the index are checked when the file is opened.
+
+   Readers only use absolute reads of the mapped file, so they can be shared
+   between threads. */
+public final class CalendarReader {
+    private final String fileName;
+    private final MappedByteBuffer buf;
+    private final long firstDay;
+    private final int nbDays;
+    private final int blockDays;
+    private final int unit;
+    private final int indexOffset;
+
+    public CalendarReader(String fileName) throws IOException
+    {
+        int nbBlocks;
+        long size;
+        CRC32 crc = new CRC32();
+
+        this.fileName = fileName;
+        try (FileChannel ch = FileChannel.open(Paths.get(fileName),
+                    StandardOpenOption.READ)) {
+            size = ch.size();
+            if (size < CalendarWriter.HEADER_SIZE + 8 || size > Integer.MAX_VALUE)
+                throw new IOException(fileName + ": not a calendar file");
+            buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+
+        if (buf.getInt(0) != CalendarWriter.MAGIC ||
+                buf.getInt(4) != CalendarWriter.VERSION ||
+                buf.getInt(20) != Prayer.NB_PRAYERS || buf.getInt(24) <= 0 ||
+                (buf.getInt(28) != 1 && buf.getInt(28) != 60) || buf.getInt(16) < 0)
+            throw new IOException(fileName + ": bad calendar file header");
+
+        firstDay = buf.getLong(8);
+        nbDays = buf.getInt(16);
+        blockDays = buf.getInt(24);
+        unit = buf.getInt(28);
+
+        nbBlocks = (nbDays + blockDays - 1) / blockDays;
+        indexOffset = (int)size - 8 - 8 * nbBlocks;
+        if (indexOffset < CalendarWriter.HEADER_SIZE)
+            throw new IOException(fileName + ": bad calendar file size");
+
+        crc.update(getData(0, CalendarWriter.HEADER_SIZE));
+        crc.update(getData(indexOffset, 8 * nbBlocks));
+        if (crc.getValue() != buf.getLong((int)size - 8))
+            throw new IOException(fileName + ": bad calendar file checksum");
+    }
+
+    public long getFirstDay()
+    {
+        return firstDay;
+    }
+
+    public LocalDate getFirstDate()
+    {
+        return LocalDate.ofEpochDay(firstDay);
+    }
+
+    public int getNbDays()
+    {
+        return nbDays;
+    }
+
+    /* Returns the location the calendar has been computed for */
+    public PTLocation getLocation()
+    {
+        return new PTLocation(buf.getDouble(32), buf.getDouble(40),
+                buf.getDouble(48), buf.getInt(80), buf.getDouble(56),
+                buf.getDouble(64), buf.getDouble(72));
+    }
+
+    /* Returns the method the calendar has been computed with */
+    public Method getMethod()
+    {
+        int i;
+        Method conf = new Method();
+
+        conf.fajrAng = buf.getDouble(84);
+        conf.ishaaAng = buf.getDouble(92);
+        conf.imsaakAng = buf.getDouble(100);
+        conf.nearestLat = buf.getDouble(108);
+        conf.fajrInv = buf.getInt(116);
+        conf.ishaaInv = buf.getInt(120);
+        conf.imsaakInv = buf.getInt(124);
+        conf.round = buf.getInt(128);
+        conf.mathhab = buf.getInt(132);
+        conf.extreme = buf.getInt(136);
+        conf.offset = buf.getInt(140);
+        conf.precision = buf.getInt(144);
+        for (i = 0; i < 6; i++)
+            conf.offList[i] = buf.getDouble(148 + 8 * i);
+        return conf;
+    }
+
+    /* Returns true if the calendar has been computed for "loc" with "conf" */
+    public boolean isFor(PTLocation loc, Method conf)
+    {
+        int i;
+        PTLocation l = getLocation();
+        Method m = getMethod();
+
+        for (i = 0; i < 6; i++)
+            if (Double.compare(m.offList[i], conf.offList[i]) != 0)
+                return false;
+
+        return Double.compare(l.degreeLat, loc.degreeLat) == 0 &&
+            Double.compare(l.degreeLong, loc.degreeLong) == 0 &&
+            Double.compare(l.gmtDiff, loc.gmtDiff) == 0 && l.dst == loc.dst &&
+            Double.compare(l.seaLevel, loc.seaLevel) == 0 &&
+            Double.compare(l.pressure, loc.pressure) == 0 &&
+            Double.compare(l.temperature, loc.temperature) == 0 &&
+            Double.compare(m.fajrAng, conf.fajrAng) == 0 &&
+            Double.compare(m.ishaaAng, conf.ishaaAng) == 0 &&
+            Double.compare(m.imsaakAng, conf.imsaakAng) == 0 &&
+            Double.compare(m.nearestLat, conf.nearestLat) == 0 &&
+            m.fajrInv == conf.fajrInv && m.ishaaInv == conf.ishaaInv &&
+            m.imsaakInv == conf.imsaakInv && m.round == conf.round &&
+            m.mathhab == conf.mathhab && m.extreme == conf.extreme &&
+            m.offset == conf.offset && m.precision == conf.precision;
+    }
+
+    public void getDay(LocalDate date, int[] times) throws IOException
+    {
+        getDay((int)(date.toEpochDay() - firstDay), times);
+    }
+
+    /* Fills "times" with the PackedTime values of the day "day" (0 for the
+       first day of the calendar) */
+    public void getDay(int day, int[] times) throws IOException
+    {
+        int i, k, b, pos, end, shift;
+        long token, v, predicted;
+        long[] prev = new long[Prayer.NB_PRAYERS];
+        long[] prev2 = new long[Prayer.NB_PRAYERS];
+        int[] status = new int[Prayer.NB_PRAYERS];
+        CRC32 crc = new CRC32();
+
+        if (day < 0 || day >= nbDays)
+            throw new IndexOutOfBoundsException("day " + day + " of " + nbDays);
+
+        b = day / blockDays;
+        pos = buf.getInt(indexOffset + 8 * b);
+        end = (b + 1 < (nbDays + blockDays - 1) / blockDays) ?
+            buf.getInt(indexOffset + 8 * (b + 1)) : indexOffset;
+        if (pos < CalendarWriter.HEADER_SIZE || end < pos || end > indexOffset)
+            throw new IOException(fileName + ": bad calendar file index");
+
+        crc.update(getData(pos, end - pos));
+        if ((int)crc.getValue() != buf.getInt(indexOffset + 8 * b + 4))
+            throw new IOException(fileName + ": bad calendar block checksum");
+
+        /* Decode the days of the block up to "day" */
+        for (k = 0; k <= day % blockDays; k++)
+            for (i = 0; i < Prayer.NB_PRAYERS; i++)
+            {
+                token = 0;
+                shift = 0;
+                do {
+                    if (pos >= end)
+                        throw new IOException(fileName + ": truncated calendar block");
+                    v = buf.get(pos++);
+                    token |= (v & 0x7f) << shift;
+                    shift += 7;
+                } while ((v & 0x80) != 0);
+
+                if ((token & 1) != 0)
+                    status[i] = buf.get(pos++);
+                token >>>= 1;
+
+                predicted = (k == 0) ? 0 : (k == 1) ? prev[i] : 2 * prev[i] - prev2[i];
+                prev2[i] = prev[i];
+                prev[i] = predicted + ((token >>> 1) ^ -(token & 1));
+            }
+
+        for (i = 0; i < Prayer.NB_PRAYERS; i++)
+            times[i] = (((status[i] & CalendarWriter.STATUS_INVALID) != 0) ?
+                    PackedTime.INVALID : (int)(prev[i] * unit)) |
+                (((status[i] & CalendarWriter.STATUS_EXTREME) != 0) ?
+                 PackedTime.EXTREME : 0);
+    }
+
+    /* Returns a view of "len" bytes of the file from "pos" */
+    private ByteBuffer getData(int pos, int len)
+    {
+        ByteBuffer data = buf.duplicate();
+
+        data.position(pos);
+        data.limit(pos + len);
+        return data;
+    }
+}
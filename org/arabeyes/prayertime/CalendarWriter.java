@@ -0,0 +1,261 @@
+/************************************************************************
+ * ------------
+ * Description:
+ * ------------
+ *  Copyright (c) 2003-2006, 2009 Arabeyes, Thamer Mahmoud
+ *  Copyright (c) 2015, Djalel Chefrour conversion to Java.
+ *
+ *  A full featured Muslim Prayer Times calculator
+ *
+ *  Most of the astronomical values and formulas used in this file are based
+ *  upon a subset of the VSOP87 planetary theory developed by Jean Meeus. Page
+ *  and formula numbers in-line below are references to his book: Astronomical
+ *  Algorithms. Willmann-Bell, second edition, 1998.
+ *
+ * (www.arabeyes.org - under LGPL license - see COPYING file)
+ ************************************************************************/
+
+package org.arabeyes.prayertime;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.zip.CRC32;
+
+/* Writes a calendar of consecutive days of prayer times in a compact binary
+   format, one day at a time. Prayer times change smoothly from one day to
+   the next, so each time is stored as the difference with its linear
+   prediction from the two previous days, which mostly fits in one byte.
+   The days are grouped in blocks that can be decoded on their own (see
+   CalendarReader), and the file carries the PTLocation and Method used.
+
+   File format (big endian):
+     int    magic        0x50544346 ("PTCF")
+     int    version      1
+     long   firstDay     first day (days since 1970-01-01)
+     int    nbDays       number of days
+     int    nbTimes      times per day (Prayer.NB_PRAYERS)
+     int    blockDays    days per block
+     int    unit         seconds per stored unit: 60 for rounded methods
+                         (Method.round != 0), 1 otherwise
+     double degreeLat, degreeLong, gmtDiff, seaLevel, pressure, temperature
+     int    dst
+     double fajrAng, ishaaAng, imsaakAng, nearestLat
+     int    fajrInv, ishaaInv, imsaakInv, round, mathhab, extreme, offset,
+            precision
+     double offList[6]
+     blocks
+     index  offset and CRC32 (ints) of each block
+     long   CRC32 of the header and the index
+
+   In a block, each time of each day is a varint token: the zigzag encoded
+   difference (in units) with the prediction, shifted left by one bit. The
+   low bit of the token is set when the status of the time changes, and
+   then a status byte follows (bit 0 invalid, bit 1 extreme, see
+   PackedTime). The prediction is 0 for the first day of a block, the
+   previous value for the second one, and 2 * previous - the one before for
+   the next ones. The status starts as valid and not extreme in each block.
+   Invalid times repeat the previous value. */
+public final class CalendarWriter implements Closeable {
+    static final int MAGIC = 0x50544346;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 196;
+    static final int DEF_BLOCK_DAYS = 16;
+
+    static final int STATUS_INVALID = 1;
+    static final int STATUS_EXTREME = 2;
+
+    private final DataOutputStream out;
+    private final int nbDays;
+    private final int blockDays;
+    private final int unit;
+    private final int[] index;          /* offset and CRC32 of each block */
+    private final ByteArrayOutputStream block;
+    private final CRC32 crc;
+    private final long[] prev, prev2;   /* previous values of each time */
+    private final int[] status;
+    private int day;
+
+    /* Writes the header of a calendar of "nbDays" days from "firstDay"
+       (days since 1970-01-01) computed for "loc" with "conf" to "out" */
+    public CalendarWriter(OutputStream out, PTLocation loc, Method conf,
+                          long firstDay, int nbDays) throws IOException
+    {
+        int i;
+        DataOutputStream header;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(HEADER_SIZE);
+
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+        this.nbDays = nbDays;
+        this.blockDays = DEF_BLOCK_DAYS;
+        this.unit = (conf.round != 0) ? 60 : 1;
+        this.index = new int[2 * ((nbDays + blockDays - 1) / blockDays)];
+        this.block = new ByteArrayOutputStream();
+        this.crc = new CRC32();
+        this.prev = new long[Prayer.NB_PRAYERS];
+        this.prev2 = new long[Prayer.NB_PRAYERS];
+        this.status = new int[Prayer.NB_PRAYERS];
+
+        header = new DataOutputStream(bytes);
+        header.writeInt(MAGIC);
+        header.writeInt(VERSION);
+        header.writeLong(firstDay);
+        header.writeInt(nbDays);
+        header.writeInt(Prayer.NB_PRAYERS);
+        header.writeInt(blockDays);
+        header.writeInt(unit);
+
+        header.writeDouble(loc.degreeLat);
+        header.writeDouble(loc.degreeLong);
+        header.writeDouble(loc.gmtDiff);
+        header.writeDouble(loc.seaLevel);
+        header.writeDouble(loc.pressure);
+        header.writeDouble(loc.temperature);
+        header.writeInt(loc.dst);
+
+        header.writeDouble(conf.fajrAng);
+        header.writeDouble(conf.ishaaAng);
+        header.writeDouble(conf.imsaakAng);
+        header.writeDouble(conf.nearestLat);
+        header.writeInt(conf.fajrInv);
+        header.writeInt(conf.ishaaInv);
+        header.writeInt(conf.imsaakInv);
+        header.writeInt(conf.round);
+        header.writeInt(conf.mathhab);
+        header.writeInt(conf.extreme);
+        header.writeInt(conf.offset);
+        header.writeInt(conf.precision);
+        for (i = 0; i < 6; i++)
+            header.writeDouble(conf.offList[i]);
+
+        crc.update(bytes.toByteArray());
+        bytes.writeTo(this.out);
+    }
+
+    /* Writes the next day, given as PackedTime values (see
+       Prayer.getPackedPrayerTimes) */
+    public void writeDay(int[] times) throws IOException
+    {
+        int i, k, s, seconds;
+        long value, predicted, token;
+
+        if (day == nbDays)
+            throw new IllegalStateException("calendar already has " + nbDays + " days");
+
+        k = day % blockDays;
+        for (i = 0; i < Prayer.NB_PRAYERS; i++)
+        {
+            if (k == 0) {
+                prev[i] = prev2[i] = 0;
+                status[i] = 0;
+            }
+            predicted = (k == 0) ? 0 : (k == 1) ? prev[i] : 2 * prev[i] - prev2[i];
+
+            s = (PackedTime.isValid(times[i]) ? 0 : STATUS_INVALID) |
+                (PackedTime.isExtreme(times[i]) ? STATUS_EXTREME : 0);
+            if (PackedTime.isValid(times[i])) {
+                seconds = times[i] & PackedTime.SECONDS_MASK;
+                if (seconds % unit != 0)
+                    throw new IllegalArgumentException("time with seconds in a calendar in minutes");
+                value = seconds / unit;
+            } else value = (k == 0) ? 0 : prev[i];
+
+            token = (zigzag(value - predicted) << 1) | ((s != status[i]) ? 1 : 0);
+            writeVarint(block, token);
+            if (s != status[i])
+                block.write(s);
+
+            status[i] = s;
+            prev2[i] = prev[i];
+            prev[i] = value;
+        }
+
+        day++;
+        if (day % blockDays == 0 || day == nbDays)
+            flushBlock();
+    }
+
+    /* Writes the index and the checksum, and closes the stream. All the
+       days must have been written: otherwise the stream is closed without
+       the index (so CalendarReader rejects it) and IllegalStateException is
+       thrown. */
+    public void close() throws IOException
+    {
+        int i;
+        ByteArrayOutputStream bytes;
+        DataOutputStream trailer;
+
+        try {
+            if (day != nbDays)
+                throw new IllegalStateException("calendar has " + day + " of " + nbDays + " days");
+
+            bytes = new ByteArrayOutputStream(4 * index.length);
+            trailer = new DataOutputStream(bytes);
+            for (i = 0; i < index.length; i++)
+                trailer.writeInt(index[i]);
+            crc.update(bytes.toByteArray());
+            trailer.writeLong(crc.getValue());
+
+            bytes.writeTo(out);
+        } finally {
+            out.close();
+        }
+    }
+
+    private void flushBlock() throws IOException
+    {
+        int b = (day - 1) / blockDays;
+        CRC32 blockCrc = new CRC32();
+
+        blockCrc.update(block.toByteArray());
+        index[2 * b] = out.size();
+        index[2 * b + 1] = (int)blockCrc.getValue();
+        block.writeTo(out);
+        block.reset();
+    }
+
+    private static long zigzag(long v)
+    {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream b, long v)
+    {
+        while ((v & ~0x7fL) != 0) {
+            b.write((int)(v & 0x7f) | 0x80);
+            v >>>= 7;
+        }
+        b.write((int)v);
+    }
+
+    /* Computes "nbDays" days from "startDate" with "prayer" and writes them
+       to the file "fileName". The file is deleted if it cannot be
+       completed. */
+    public static void write(String fileName, Prayer prayer, PTLocation loc,
+                             Method conf, LocalDate startDate, int nbDays)
+        throws IOException
+    {
+        int i, j;
+        int[] times = new int[Prayer.NB_PRAYERS];
+        PackedTimeTable table = prayer.getPackedTimesForRange(loc, conf,
+                startDate, nbDays);
+
+        try (CalendarWriter w = new CalendarWriter(new FileOutputStream(fileName),
+                    loc, conf, startDate.toEpochDay(), nbDays)) {
+            for (i = 0; i < nbDays; i++) {
+                for (j = 0; j < Prayer.NB_PRAYERS; j++)
+                    times[j] = table.get(j, i);
+                w.writeDay(times);
+            }
+        } catch (IOException | RuntimeException e) {
+            new File(fileName).delete();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+/************************************************************************
+ * ------------
+ * Description:
+ * ------------
+ *  Copyright (c) 2003-2006, 2009 Arabeyes, Thamer Mahmoud
+ *  Copyright (c) 2015, Djalel Chefrour conversion to Java.
+ *
+ *  A full featured Muslim Prayer Times calculator
+ *
+ *  Most of the astronomical values and formulas used in this file are based
+ *  upon a subset of the VSOP87 planetary theory developed by Jean Meeus. Page
+ *  and formula numbers in-line below are references to his book: Astronomical
+ *  Algorithms. Willmann-Bell, second edition, 1998.
+ *
+ * (www.arabeyes.org - under LGPL license - see COPYING file)
+ ************************************************************************/
+
+package org.arabeyes.prayertime;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/* Geocentric values of the Sun evaluated from Chebyshev polynomials instead
+   of the VSOP87 series. The time range is cut into segments of a fixed number
+   of days, and on each segment the right ascension, declination, sidereal
+   time and radius vector are each given by a polynomial fitted to another
+   ephemeris (normally AstroDay). An evaluation is then about 50
+   multiply-adds. Days outside of the fitted range are computed with VSOP87.
+
+   With the defaults (16-day segments, degree 12), the maximum deviation from
+   VSOP87 over 1900-2200 is 0.0001" in right ascension and declination and
+   0.0005" in sidereal time (see getMaxDeviation). Prayer times change by 1
+   second at most, only when the seconds fall on a rounding boundary (both
+   are checked by ValidateChebyshevEphemeris in the top directory). The
+   table for 1900-2200 takes 2.8 MB. */
+public final class ChebyshevEphemeris implements Ephemeris {
+    public static final int DEF_SEGMENT_DAYS = 16;
+    public static final int DEF_DEGREE = 12;
+
+    private static final int MAGIC = 0x50544348;    /* "PTCH" */
+    private static final int VERSION = 1;
+    private static final int NB_VALUES = 4;         /* ra, dec, sid, rsum */
+    private static final double SIDEREAL_RATE = 360.98564736629; /* (p. 88) */
+    private static final long UNIX_EPOCH_DAY = 2440587;    /* 1970-01-01 */
+
+    private final double startJD;      /* Start of the first segment */
+    private final int segmentDays;
+    private final int nbCoeffs;        /* degree + 1 */
+    private final int nbSegments;
+    private final double[] coeffs;     /* [segment][value][coefficient] */
+    private final AstroDay vsop = new AstroDay();
+
+    private ChebyshevEphemeris(double startJD, int segmentDays, int nbCoeffs,
+                               int nbSegments, double[] coeffs)
+    {
+        this.startJD = startJD;
+        this.segmentDays = segmentDays;
+        this.nbCoeffs = nbCoeffs;
+        this.nbSegments = nbSegments;
+        this.coeffs = coeffs;
+    }
+
+    /* Reads a table written by "save" */
+    public ChebyshevEphemeris(String fileName) throws IOException
+    {
+        int i, n;
+        CRC32 crc = new CRC32();
+
+        try (DataInputStream in = new DataInputStream(new CheckedInputStream(
+                        new BufferedInputStream(new FileInputStream(fileName)), crc))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION)
+                throw new IOException(fileName + ": bad ephemeris file header");
+            startJD = in.readDouble();
+            segmentDays = in.readInt();
+            nbCoeffs = in.readInt();
+            nbSegments = in.readInt();
+            if (segmentDays < 1 || nbCoeffs < 1 || nbSegments < 1)
+                throw new IOException(fileName + ": bad ephemeris file header");
+
+            n = nbSegments * NB_VALUES * nbCoeffs;
+            coeffs = new double[n];
+            for (i = 0; i < n; i++)
+                coeffs[i] = in.readDouble();
+
+            long sum = crc.getValue();
+            if (in.readLong() != sum)
+                throw new IOException(fileName + ": bad ephemeris file checksum");
+        }
+    }
+
+    /* Fits the polynomials to "source" for all the days of the years
+     * "startYear" to "endYear" */
+    public static ChebyshevEphemeris fit(Ephemeris source, int startYear, int endYear,
+                                         int segmentDays, int degree)
+    {
+        int s, k, v, j;
+        int n = degree + 1;
+        double a, x, prevRa = 0, prevSid = 0;
+        double startJD, endJD;
+        int nbSegments;
+        double[] coeffs;
+        double[][] samples = new double[NB_VALUES][n];
+        AstroValues astro = new AstroValues();
+
+        startJD = UNIX_EPOCH_DAY + LocalDate.of(startYear, 1, 1).toEpochDay() - 0.5;
+        endJD = UNIX_EPOCH_DAY + LocalDate.of(endYear, 12, 31).toEpochDay() + 1.5;
+        nbSegments = (int)Math.ceil((endJD - startJD) / segmentDays);
+        coeffs = new double[nbSegments * NB_VALUES * n];
+
+        for (s = 0; s < nbSegments; s++)
+        {
+            a = startJD + (double)s * segmentDays;
+
+            /* Sample at the Chebyshev nodes, in increasing time order */
+            for (k = 0; k < n; k++)
+            {
+                x = -Math.cos(Math.PI * (k + 0.5) / n);
+                source.computeAstroDay(a + (x + 1) * segmentDays / 2.0, astro, 0);
+
+                /* Angles are unwrapped against the previous node, and the
+                 * sidereal time is reduced by its daily motion */
+                samples[0][k] = (k == 0) ? astro.ra[0] :
+                    DayInterpolator.unwrap(astro.ra[0], prevRa);
+                samples[1][k] = astro.dec[0];
+                samples[2][k] = astro.sid[0] - SIDEREAL_RATE * (x + 1) * segmentDays / 2.0;
+                samples[2][k] = DayInterpolator.limitAngle(samples[2][k]);
+                if (k != 0)
+                    samples[2][k] = DayInterpolator.unwrap(samples[2][k], prevSid);
+                samples[3][k] = astro.rsum[0];
+                prevRa = samples[0][k];
+                prevSid = samples[2][k];
+            }
+
+            for (v = 0; v < NB_VALUES; v++)
+            {
+                for (j = 0; j < n; j++)
+                {
+                    double sum = 0;
+                    for (k = 0; k < n; k++)
+                        sum += samples[v][k] *
+                            Math.cos(Math.PI * j * (n - 1 - k + 0.5) / n);
+                    coeffs[(s * NB_VALUES + v) * n + j] = sum * ((j == 0) ? 1.0 : 2.0) / n;
+                }
+            }
+        }
+
+        return new ChebyshevEphemeris(startJD, segmentDays, n, nbSegments, coeffs);
+    }
+
+    /* Writes the table to the file "fileName" */
+    public void save(String fileName) throws IOException
+    {
+        CRC32 crc = new CRC32();
+
+        try (DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                        new BufferedOutputStream(new FileOutputStream(fileName)), crc))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeDouble(startJD);
+            out.writeInt(segmentDays);
+            out.writeInt(nbCoeffs);
+            out.writeInt(nbSegments);
+            for (double c : coeffs)
+                out.writeDouble(c);
+            out.flush();
+            out.writeLong(crc.getValue());
+        }
+    }
+
+    public void computeAstroDay(double JD, AstroValues astro, int i)
+    {
+        double t = JD - startJD;
+        int s = (int)Math.floor(t / segmentDays);
+        double dt, x;
+        int base;
+
+        if (t < 0 || s >= nbSegments) {
+            vsop.computeAstroDay(JD, astro, i);
+            return;
+        }
+
+        dt = t - (double)s * segmentDays;
+        x = 2.0 * dt / segmentDays - 1;
+        base = s * NB_VALUES * nbCoeffs;
+
+        astro.ra[i] = DayInterpolator.limitAngle(evaluate(base, x));
+        astro.dec[i] = evaluate(base + nbCoeffs, x);
+        astro.sid[i] = DayInterpolator.limitAngle(evaluate(base + 2 * nbCoeffs, x)
+                + SIDEREAL_RATE * dt);
+        astro.dra[i] = 0;
+        astro.rsum[i] = evaluate(base + 3 * nbCoeffs, x);
+    }
+
+    /* Clenshaw's recurrence for the polynomial whose coefficients start at
+     * "base" */
+    private double evaluate(int base, double x)
+    {
+        double b1 = 0, b2 = 0, tmp;
+        double x2 = 2 * x;
+        int j;
+
+        for (j = nbCoeffs - 1; j > 0; j--) {
+            tmp = b1;
+            b1 = x2 * b1 - b2 + coeffs[base + j];
+            b2 = tmp;
+        }
+        return x * b1 - b2 + coeffs[base];
+    }
+
+    /* Sweeps the fitted range with "nbSamples" Julian days and returns the
+     * maximum deviation from "reference" in arc seconds, as {ra, dec, sid} */
+    public double[] getMaxDeviation(Ephemeris reference, int nbSamples)
+    {
+        int k;
+        double JD, span = (double)nbSegments * segmentDays;
+        double[] max = new double[3];
+        AstroValues a = new AstroValues();
+        AstroValues b = new AstroValues();
+
+        for (k = 0; k < nbSamples; k++)
+        {
+            /* Irrational step so that all the offsets within a day are used */
+            JD = startJD + ((k * 0.6180339887498949) % 1.0) * span;
+            reference.computeAstroDay(JD, a, 0);
+            computeAstroDay(JD, b, 0);
+
+            max[0] = Math.max(max[0], 3600 * Math.abs(
+                        DayInterpolator.unwrap(b.ra[0], a.ra[0]) - a.ra[0]));
+            max[1] = Math.max(max[1], 3600 * Angle.RAD_TO_DEG(Math.abs(b.dec[0] - a.dec[0])));
+            max[2] = Math.max(max[2], 3600 * Math.abs(
+                        DayInterpolator.unwrap(b.sid[0], a.sid[0]) - a.sid[0]));
+        }
+        return max;
+    }
+}
@@ -0,0 +1,81 @@
+/************************************************************************
+ * ------------
+ * Description:
+ * ------------
+ *  Copyright (c) 2003-2006, 2009 Arabeyes, Thamer Mahmoud
+ *  Copyright (c) 2015, Djalel Chefrour conversion to Java.
+ *
+ *  A full featured Muslim Prayer Times calculator
+ *
+ *  Most of the astronomical values and formulas used in this file are based
+ *  upon a subset of the VSOP87 planetary theory developed by Jean Meeus. Page
+ *  and formula numbers in-line below are references to his book: Astronomical
+ *  Algorithms. Willmann-Bell, second edition, 1998.
+ *
+ * (www.arabeyes.org - under LGPL license - see COPYING file)
+ ************************************************************************/
+
+package org.arabeyes.prayertime;
+
+/* Interpolation of geocentric values tabulated at 0h UT of 4 consecutive
+   days (-1, 0, 1, 2) for a fraction "f" (0 <= f < 1) of day 0 (pp. 23-25).
+   Used by the ephemerides that work from daily tables. */
+final class DayInterpolator {
+    private static final double SIDEREAL_DAY_RATE = 0.98564736629; /* (p. 88) */
+
+    private DayInterpolator()
+    {
+
+    }
+
+    /* Returns the day number such that 0h UT of that day is at or just before
+     * "JD" (i.e. JD = day + 0.5 + f) */
+    static long getDay(double JD)
+    {
+        return (long)Math.floor(JD - 0.5);
+    }
+
+    /* Lagrange interpolation */
+    static double interpolate(double f, double y0, double y1, double y2, double y3)
+    {
+        double fp = f + 1, fm = f - 1, fm2 = f - 2;
+
+        return - y0 * f * fm * fm2 / 6.0
+            + y1 * fp * fm * fm2 / 2.0
+            - y2 * fp * f * fm2 / 2.0
+            + y3 * fp * f * fm / 6.0;
+    }
+
+    /* Interpolation of an angle in degrees such as the right ascension */
+    static double interpolateAngle(double f, double a0, double a1, double a2, double a3)
+    {
+        return limitAngle(interpolate(f, unwrap(a0, a1), a1, unwrap(a2, a1),
+                    unwrap(a3, a1)));
+    }
+
+    /* Interpolation of the sidereal time. It is reduced by its daily motion
+     * first so that it varies slowly like the other values. */
+    static double interpolateSidereal(double f, double s0, double s1, double s2, double s3)
+    {
+        return limitAngle(interpolate(f, unwrap(s0 + SIDEREAL_DAY_RATE, s1), s1,
+                    unwrap(s2 - SIDEREAL_DAY_RATE, s1),
+                    unwrap(s3 - 2 * SIDEREAL_DAY_RATE, s1))
+                + 360.98564736629 * f);
+    }
+
+    /* Returns the angle "A" moved by 360 degrees to be within 180 degrees
+     * of "ref" */
+    static double unwrap(double A, double ref)
+    {
+        if (A - ref > 180)
+            return A - 360;
+        if (A - ref < -180)
+            return A + 360;
+        return A;
+    }
+
+    static double limitAngle(double A)
+    {
+        return A - 360 * Math.floor(A / 360.0);
+    }
+}
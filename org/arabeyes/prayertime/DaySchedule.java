@@ -0,0 +1,43 @@
+/************************************************************************
+ * ------------
+ * Description:
+ * ------------
+ *  Copyright (c) 2003-2006, 2009 Arabeyes, Thamer Mahmoud
+ *  Copyright (c) 2015, Djalel Chefrour conversion to Java.
+ *
+ *  A full featured Muslim Prayer Times calculator
+ *
+ *  Most of the astronomical values and formulas used in this file are based
+ *  upon a subset of the VSOP87 planetary theory developed by Jean Meeus. Page
+ *  and formula numbers in-line below are references to his book: Astronomical
+ *  Algorithms. Willmann-Bell, second edition, 1998.
+ *
+ * (www.arabeyes.org - under LGPL license - see COPYING file)
+ ************************************************************************/
+package org.arabeyes.prayertime;
+
+/* All the times of one day, as computed by Prayer.getDaySchedule. The
+   packed times (see PackedTime) are:
+    - times[0]        is the Fajr time
+    - ... and so on until times[5] for Ishaa
+    - times[IMSAAK]        Imsaak (see Prayer.getImsaak)
+    - times[NEXT_FAJR]     the next day's Fajr
+    - times[NEXT_IMSAAK]   the next day's Imsaak
+    - times[MIDNIGHT]      the middle of the night, from Maghrib to the
+                           next day's Fajr
+    - times[LAST_THIRD]    the start of the last third of that night
+   The times of the night are rounded down (as Shurooq), and are extreme if
+   Maghrib or the next day's Fajr is. */
+public class DaySchedule extends PrayerDay {
+    public static final int IMSAAK = 6;
+    public static final int NEXT_FAJR = 7;
+    public static final int NEXT_IMSAAK = 8;
+    public static final int MIDNIGHT = 9;
+    public static final int LAST_THIRD = 10;
+    public static final int NB_TIMES = 11;
+
+    public DaySchedule(long epochDay, int[] times)
+    {
+        super(epochDay, times);
+    }
+}
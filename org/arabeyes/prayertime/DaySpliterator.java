@@ -0,0 +1,90 @@
+/************************************************************************
+ * ------------
+ * Description:
+ * ------------
+ *  Copyright (c) 2003-2006, 2009 Arabeyes, Thamer Mahmoud
+ *  Copyright (c) 2015, Djalel Chefrour conversion to Java.
+ *
+ *  A full featured Muslim Prayer Times calculator
+ *
+ *  Most of the astronomical values and formulas used in this file are based
+ *  upon a subset of the VSOP87 planetary theory developed by Jean Meeus. Page
+ *  and formula numbers in-line below are references to his book: Astronomical
+ *  Algorithms. Willmann-Bell, second edition, 1998.
+ *
+ * (www.arabeyes.org - under LGPL license - see COPYING file)
+ ************************************************************************/
+package org.arabeyes.prayertime;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/* Spliterator of the days of Prayer.days. The days of a spliterator are
+   computed in order with its own Prayer object, created on the first day:
+   the first day computes the three days of the astronomical window and the
+   next ones only shift it by one day. Splitting gives the first half of the
+   remaining days to a new spliterator, which seeds its own window at its
+   first day, so the parts of a parallel stream share no mutable state. */
+final class DaySpliterator implements Spliterator<PrayerDay> {
+    /* Parts are not split below this number of days, as each part computes
+       two more days to seed its window */
+    private static final int MIN_SPLIT_DAYS = 16;
+
+    private final Ephemeris ephemeris;
+    private final PTLocation loc;
+    private final Method conf;
+    private long day;                   /* next day */
+    private final long end;             /* first day after the range */
+    private Prayer prayer;
+    private boolean next;               /* true if "day" follows the last day computed */
+
+    DaySpliterator(Ephemeris eph, PTLocation loc, Method conf, long start, long end)
+    {
+        this.ephemeris = eph;
+        this.loc = loc;
+        this.conf = conf;
+        this.day = start;
+        this.end = Math.max(start, end);
+    }
+
+    public boolean tryAdvance(Consumer<? super PrayerDay> action)
+    {
+        int[] times;
+
+        if (day >= end)
+            return false;
+        if (prayer == null)
+            prayer = new Prayer(ephemeris);
+
+        times = new int[Prayer.NB_PRAYERS];
+        prayer.getPackedPrayerTimes(loc, conf, day, next, times);
+        next = true;
+        action.accept(new PrayerDay(day++, times));
+        return true;
+    }
+
+    public Spliterator<PrayerDay> trySplit()
+    {
+        long mid;
+        DaySpliterator prefix;
+
+        if (end - day < 2 * MIN_SPLIT_DAYS)
+            return null;
+
+        mid = day + (end - day) / 2;
+        prefix = new DaySpliterator(ephemeris, loc, conf, day, mid);
+        day = mid;
+        next = false;
+        return prefix;
+    }
+
+    public long estimateSize()
+    {
+        return end - day;
+    }
+
+    public int characteristics()
+    {
+        return ORDERED | DISTINCT | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+    }
+}
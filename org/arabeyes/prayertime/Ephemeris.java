@@ -0,0 +1,29 @@
+/************************************************************************
+ * ------------
+ * Description:
+ * ------------
+ *  Copyright (c) 2003-2006, 2009 Arabeyes, Thamer Mahmoud
+ *  Copyright (c) 2015, Djalel Chefrour conversion to Java.
+ *
+ *  A full featured Muslim Prayer Times calculator
+ *
+ *  Most of the astronomical values and formulas used in this file are based
+ *  upon a subset of the VSOP87 planetary theory developed by Jean Meeus. Page
+ *  and formula numbers in-line below are references to his book: Astronomical
+ *  Algorithms. Willmann-Bell, second edition, 1998.
+ *
+ * (www.arabeyes.org - under LGPL license - see COPYING file)
+ ************************************************************************/
+
+package org.arabeyes.prayertime;
+
+/* Source of the geocentric values of the Sun used by AstroDay. These values
+   depend only on the Julian day, not on the location. AstroDay itself
+   implements this interface with the VSOP87 series. */
+public interface Ephemeris {
+    /* Computes the apparent right ascension (degrees), declination (radians),
+     * apparent sidereal time (degrees) and radius vector (AU) for the
+     * astronomical Julian day "JD", and stores them in the day "i" of the
+     * structure "astro". Delta right ascension is set to 0. */
+    void computeAstroDay(double JD, AstroValues astro, int i);
+}
@@ -0,0 +1,115 @@
+/************************************************************************
+ * ------------
+ * Description:
+ * ------------
+ *  Copyright (c) 2003-2006, 2009 Arabeyes, Thamer Mahmoud
+ *  Copyright (c) 2015, Djalel Chefrour conversion to Java.
+ *
+ *  A full featured Muslim Prayer Times calculator
+ *
+ *  Most of the astronomical values and formulas used in this file are based
+ *  upon a subset of the VSOP87 planetary theory developed by Jean Meeus. Page
+ *  and formula numbers in-line below are references to his book: Astronomical
+ *  Algorithms. Willmann-Bell, second edition, 1998.
+ *
+ * (www.arabeyes.org - under LGPL license - see COPYING file)
+ ************************************************************************/
+
+package org.arabeyes.prayertime;
+
+import java.util.Arrays;
+
+/* Pre-selection of the days searched by the "Nearest Good Day" extreme
+   methods.
+
+   Fajr (or Ishaa) at angle A can be computed at latitude L only if the
+   declination D of the Sun satisfies |L + D| <= 90 - A and |L - D| <= 90 + A,
+   which gives an interval of declinations for both prayers. A day whose
+   declination is certainly out of that interval cannot be a good day and does
+   not need the full VSOP87 values. The declination of each day is estimated
+   with the low accuracy formulas of Meeus (pp. 163-165). Their error,
+   including the topocentric parallax, is below 0.006 degrees, so days within
+   MARGIN of the interval are kept as candidates and checked normally.
+
+   The estimated declinations are computed when first needed, and kept for
+   the days around the last searched one while the fraction of the Julian day
+   stays the same (it changes with the GMT difference, and with delta-t every
+   year). */
+final class GoodDayFilter {
+    private static final double MARGIN = 0.05;     /* degrees */
+
+    private double decLo;
+    private double decHi;
+    private double fraction = Double.NaN;
+    private long start;
+    private double[] decs;
+
+    /* Sets the latitude and angles searched, for the days within "nbDays" of
+     * "julianDay" */
+    void prepare(double julianDay, int nbDays, double lat, double fajrAng,
+                 double ishaaAng)
+    {
+        int size;
+        long day = (long)Math.floor(julianDay);
+        double frac = julianDay - day;
+
+        decLo = Math.max(getDecLo(lat, fajrAng), getDecLo(lat, ishaaAng)) - MARGIN;
+        decHi = Math.min(getDecHi(lat, fajrAng), getDecHi(lat, ishaaAng)) + MARGIN;
+
+        if (decs != null && frac == fraction && day - nbDays >= start &&
+                day + nbDays < start + decs.length)
+            return;
+
+        /* Also cover the next year, for calendars of consecutive days */
+        size = 2 * nbDays + 368;
+        if (decs == null || decs.length < size)
+            decs = new double[size];
+        Arrays.fill(decs, Double.NaN);
+        start = day - nbDays;
+        fraction = frac;
+    }
+
+    /* Returns false if the day "jd" is certainly not a good day. "jd" must be
+     * within the days given to "prepare". */
+    boolean isCandidate(double jd)
+    {
+        int i = (int)((long)Math.floor(jd) - start);
+
+        if (Double.isNaN(decs[i]))
+            decs[i] = getApproxDec(start + i + fraction);
+        return (decs[i] >= decLo && decs[i] <= decHi);
+    }
+
+    private static double getDecLo(double lat, double ang)
+    {
+        if (Math.abs(ang) >= 90)
+            return -90;
+        return Math.max(-90 + ang - lat, lat - 90 - ang);
+    }
+
+    private static double getDecHi(double lat, double ang)
+    {
+        if (Math.abs(ang) >= 90)
+            return 90;
+        return Math.min(90 - ang - lat, lat + 90 + ang);
+    }
+
+    /* Apparent declination of the Sun in degrees with an accuracy of 0.01
+     * degrees (pp. 163-165) */
+    private static double getApproxDec(double JD)
+    {
+        double T = (JD - 2451545) / 36525.0;
+        double L0, M, C, O, lambda, E;
+
+        L0 = 280.46646 + 36000.76983 * T + 0.0003032 * T * T;
+        M = Angle.DEG_TO_RAD(357.52911 + 35999.05029 * T - 0.0001537 * T * T);
+        C = (1.914602 - 0.004817 * T - 0.000014 * T * T) * Math.sin(M)
+            + (0.019993 - 0.000101 * T) * Math.sin(2 * M)
+            + 0.000289 * Math.sin(3 * M);
+        O = Angle.DEG_TO_RAD(125.04 - 1934.136 * T);
+        lambda = Angle.DEG_TO_RAD(L0 + C - 0.00569 - 0.00478 * Math.sin(O));
+        E = Angle.DEG_TO_RAD(23.439291 - 0.0130042 * T + 0.00256 * Math.cos(O));
+
+        return Angle.RAD_TO_DEG(Math.asin(Math.sin(E) * Math.sin(lambda)));
+    }
+}
@@ -0,0 +1,167 @@
+/************************************************************************
+ * ------------
+ * Description:
+ * ------------
+ *  Copyright (c) 2003-2006, 2009 Arabeyes, Thamer Mahmoud
+ *  Copyright (c) 2015, Djalel Chefrour conversion to Java.
+ *
+ *  A full featured Muslim Prayer Times calculator
+ *
+ *  Most of the astronomical values and formulas used in this file are based
+ *  upon a subset of the VSOP87 planetary theory developed by Jean Meeus. Page
+ *  and formula numbers in-line below are references to his book: Astronomical
+ *  Algorithms. Willmann-Bell, second edition, 1998.
+ *
+ * (www.arabeyes.org - under LGPL license - see COPYING file)
+ ************************************************************************/
+
+package org.arabeyes.prayertime;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.zip.CRC32;
+
+/* Geocentric values of the Sun read from a precomputed file instead of the
+   VSOP87 series. The file holds the VSOP87 values at 0h UT of each day of a
+   range of years, and is mapped in memory so that several processes on the
+   same host share the same pages. Other Julian days are interpolated like in
+   SolarCache. Days outside of the file range are computed with VSOP87.
+
+   File format (big endian):
+     int    magic       0x50544550 ("PTEP")
+     int    version     1
+     long   firstDay    day number of the first record (JD = day + 0.5)
+     int    nbDays      number of records
+     int    recordSize  32
+     long   checksum    CRC32 of all the records
+     records of 4 doubles: ra (degrees), dec (radians), sid (degrees), rsum */
+public final class MappedEphemeris implements Ephemeris {
+    private static final int MAGIC = 0x50544550;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int RECORD_SIZE = 32;
+    private static final long UNIX_EPOCH_DAY = 2440587;    /* 1970-01-01 */
+
+    private final MappedByteBuffer buf;
+    private final long firstDay;
+    private final int nbDays;
+    private final AstroDay vsop = new AstroDay();
+
+    /* Maps the file "fileName" and checks its header and checksum */
+    public MappedEphemeris(String fileName) throws IOException
+    {
+        long size;
+        CRC32 crc = new CRC32();
+
+        try (FileChannel ch = FileChannel.open(Paths.get(fileName),
+                    StandardOpenOption.READ)) {
+            size = ch.size();
+            if (size < HEADER_SIZE)
+                throw new IOException(fileName + ": not an ephemeris file");
+            buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+
+        if (buf.getInt(0) != MAGIC || buf.getInt(4) != VERSION ||
+                buf.getInt(20) != RECORD_SIZE)
+            throw new IOException(fileName + ": bad ephemeris file header");
+
+        firstDay = buf.getLong(8);
+        nbDays = buf.getInt(16);
+        if (nbDays < 4 || size != HEADER_SIZE + (long)nbDays * RECORD_SIZE)
+            throw new IOException(fileName + ": bad ephemeris file size");
+
+        ByteBuffer data = buf.duplicate();
+        data.position(HEADER_SIZE);
+        crc.update(data);
+        if (crc.getValue() != buf.getLong(24))
+            throw new IOException(fileName + ": bad ephemeris file checksum");
+    }
+
+    /* Writes the file "fileName" for all the days of the years "startYear"
+     * to "endYear", plus the neighbour days needed for interpolation */
+    public static void generate(String fileName, int startYear, int endYear)
+        throws IOException
+    {
+        int i, nbDays;
+        long firstDay, lastDay;
+        ByteBuffer buf;
+        CRC32 crc = new CRC32();
+        AstroDay astroDay = new AstroDay();
+        AstroValues v = new AstroValues();
+
+        firstDay = UNIX_EPOCH_DAY + LocalDate.of(startYear, 1, 1).toEpochDay() - 2;
+        lastDay = UNIX_EPOCH_DAY + LocalDate.of(endYear, 12, 31).toEpochDay() + 3;
+        nbDays = (int)(lastDay - firstDay + 1);
+
+        buf = ByteBuffer.allocate(HEADER_SIZE + nbDays * RECORD_SIZE);
+        buf.position(HEADER_SIZE);
+        for (i = 0; i < nbDays; i++) {
+            astroDay.computeAstroDay(firstDay + i + 0.5, v, 0);
+            buf.putDouble(v.ra[0]);
+            buf.putDouble(v.dec[0]);
+            buf.putDouble(v.sid[0]);
+            buf.putDouble(v.rsum[0]);
+        }
+
+        buf.position(HEADER_SIZE);
+        crc.update(buf);
+
+        buf.putInt(0, MAGIC);
+        buf.putInt(4, VERSION);
+        buf.putLong(8, firstDay);
+        buf.putInt(16, nbDays);
+        buf.putInt(20, RECORD_SIZE);
+        buf.putLong(24, crc.getValue());
+        buf.rewind();
+
+        try (FileChannel ch = FileChannel.open(Paths.get(fileName),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buf.hasRemaining())
+                ch.write(buf);
+        }
+    }
+
+    public void computeAstroDay(double JD, AstroValues astro, int i)
+    {
+        long day = DayInterpolator.getDay(JD);
+        double f = JD - 0.5 - day;
+        int r0, r1, r2, r3;
+
+        if (day - 1 < firstDay || day + 2 >= firstDay + nbDays) {
+            vsop.computeAstroDay(JD, astro, i);
+            return;
+        }
+
+        r0 = HEADER_SIZE + (int)(day - 1 - firstDay) * RECORD_SIZE;
+        r1 = r0 + RECORD_SIZE;
+        r2 = r1 + RECORD_SIZE;
+        r3 = r2 + RECORD_SIZE;
+
+        astro.ra[i] = DayInterpolator.interpolateAngle(f, buf.getDouble(r0),
+                buf.getDouble(r1), buf.getDouble(r2), buf.getDouble(r3));
+        astro.dec[i] = DayInterpolator.interpolate(f, buf.getDouble(r0 + 8),
+                buf.getDouble(r1 + 8), buf.getDouble(r2 + 8), buf.getDouble(r3 + 8));
+        astro.sid[i] = DayInterpolator.interpolateSidereal(f, buf.getDouble(r0 + 16),
+                buf.getDouble(r1 + 16), buf.getDouble(r2 + 16), buf.getDouble(r3 + 16));
+        astro.dra[i] = 0;
+        astro.rsum[i] = DayInterpolator.interpolate(f, buf.getDouble(r0 + 24),
+                buf.getDouble(r1 + 24), buf.getDouble(r2 + 24), buf.getDouble(r3 + 24));
+    }
+
+    /* Generates an ephemeris file:
+       $ java org.arabeyes.prayertime.MappedEphemeris file 1900 2200 */
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length != 3) {
+            System.err.println("usage: MappedEphemeris <file> <startYear> <endYear>");
+            System.exit(1);
+        }
+        generate(args[0], Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+    }
+}
@@ -17,8 +17,6 @@
 
 package org.arabeyes.prayertime;
 
-import java.util.Arrays;
-
 public class Method {
     private static final double DEF_NEAREST_LATITUDE = 48.5;
     private static final double DEF_IMSAAK_ANGLE = 1.5;
@@ -34,6 +32,11 @@ public class Method {
     public static final int FIXED_ISHAA = 7;
     public static final int EGYPT_NEW = 8;
 
+    // precision tiers (Method.precision)
+    public static final int PRECISION_FULL = 0;
+    public static final int PRECISION_STANDARD = 1;
+    public static final int PRECISION_FAST = 2;
+
     public double fajrAng;     /* Fajr angle */
     public double ishaaAng;    /* Ishaa angle */
     public double imsaakAng;   /* The angle difference between Imsaak and Fajr (
@@ -94,6 +97,41 @@ public class Method {
                                 offList[4] = 0.5
                                 offList[5] = -2
                            ..and than call getPrayerTimes as usual. */
+    public int precision;      /* Precision of the Sun's positions:
+                           0: Full. All the terms of the VSOP87 and nutation
+                              series, topocentric values and refraction at
+                              the Sun's computed altitude. (default)
+                           1: Standard. Only the VSOP87 terms of 2E-6 or
+                              more (53 of 195) and the nutation terms of
+                              0.01" or more (13 of 63).
+                           2: Fast. Only the VSOP87 terms of 4E-5 or more
+                              (13) and the nutation terms of 0.5" or more
+                              (2), geocentric values (no parallax) and the
+                              refraction at the horizon.
+                           Largest differences with Full (in seconds, no
+                           rounding, no extreme method, days where only one
+                           of the tiers gives a time excluded) over
+                           1900-2100 on a grid of all longitudes (see
+                           "precision.*.error" in BenchPrayerTime):
+                                       Fajr Shurooq Zuhr Assr Maghrib Ishaa
+                           latitudes within 60 degrees:
+                              Standard   13       1    1    1       1     9
+                              Fast      104       4    3    4       6    94
+                           latitudes from 65 to 80 degrees:
+                              Standard   42    3877    1    1    3658    12
+                              Fast      230   20118    3    6   38255   202
+                           The largest differences are on the days where the
+                           Sun barely reaches the angle of the prayer: Fajr
+                           and Ishaa in summer at high latitudes, and Shurooq
+                           and Maghrib next to the polar days and nights,
+                           where the Sun grazes the horizon and a small error
+                           on its declination moves the time by minutes to
+                           hours.
+                           When the Prayer uses an Ephemeris (see
+                           Prayer(Ephemeris)), its values are used as they
+                           are: the series are not truncated, and only the
+                           geocentric values and horizon refraction of Fast
+                           apply (Standard is then the same as Full). */
 
     public Method()
     {
@@ -103,6 +141,13 @@ public class Method {
 
     public Method(Method m)
     {   
+        this.offList = new double[6];
+        set(m);
+    }
+
+    /* Copies the values of "m" into this method */
+    public void set(Method m)
+    {
         this.fajrAng = m.fajrAng;
         this.ishaaAng = m.ishaaAng;
         this.imsaakAng = m.imsaakAng;
@@ -114,7 +159,8 @@ public class Method {
         this.nearestLat = m.nearestLat;
         this.extreme = m.extreme;
         this.offset = m.offset;
-        this.offList = Arrays.copyOf(m.offList, m.offList.length);
+        System.arraycopy(m.offList, 0, this.offList, 0, this.offList.length);
+        this.precision = m.precision;
     }
 
     /* This function is used to auto fill the Method structure with predefined
@@ -145,6 +191,7 @@ public class Method {
         imsaakAng = DEF_IMSAAK_ANGLE;
         extreme = 5;
         offset = 0;
+        precision = PRECISION_FULL;
         for (i = 0; i < 6; i++) {
             offList[i] = 0; 
         }
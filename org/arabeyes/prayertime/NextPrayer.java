@@ -0,0 +1,229 @@
+/************************************************************************
+ * ------------
+ * Description:
+ * ------------
+ *  Copyright (c) 2003-2006, 2009 Arabeyes, Thamer Mahmoud
+ *  Copyright (c) 2015, Djalel Chefrour conversion to Java.
+ *
+ *  A full featured Muslim Prayer Times calculator
+ *
+ *  Most of the astronomical values and formulas used in this file are based
+ *  upon a subset of the VSOP87 planetary theory developed by Jean Meeus. Page
+ *  and formula numbers in-line below are references to his book: Astronomical
+ *  Algorithms. Willmann-Bell, second edition, 1998.
+ *
+ * (www.arabeyes.org - under LGPL license - see COPYING file)
+ ************************************************************************/
+package org.arabeyes.prayertime;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+
+/* Answers "which prayer comes next after instant t" for one location.
+
+   The prayer times of the local day of the last query, and of the next day
+   once needed, are kept as a window of events sorted by instant. A query
+   inside the first day of the window only looks for the first event after
+   it among these (at most 12) events, with no computation and no
+   allocation. The next day is only computed, and added to the window, by
+   the first query after the last prayer of the first day. When the time
+   passes midnight, that day becomes the first day of the window. Any other
+   day starts a new window with only that day computed. So a query computes
+   at most one day, except a query on a new day after its last prayer (two
+   days).
+
+   The window is immutable and replaced as a whole, so queries may come
+   from several threads: they only synchronize on a new window. */
+public final class NextPrayer {
+    private final PTLocation loc;
+    private final Method conf;
+    private final ZoneId zoneId;
+    private final Prayer prayer;
+    private final int[] times;
+    private ZoneYear offsets;
+    private long lastDay = Long.MIN_VALUE;  /* last day computed by "prayer" */
+    private double lastGmt;
+    private volatile Window window;
+
+    private static final class Window {
+        final long firstDay;
+        final long start;           /* first second of the first day */
+        final long middle;          /* first second of the second day */
+        final long end;             /* first second after the second day, or
+                                       "middle" if it is not computed yet */
+        final PrayerEvent[] events; /* events of the days, by instant */
+        final int nbFirst;          /* number of events of the first day */
+
+        Window(long firstDay, long start, long middle, long end,
+               PrayerEvent[] events, int nbFirst)
+        {
+            this.firstDay = firstDay;
+            this.start = start;
+            this.middle = middle;
+            this.end = end;
+            this.events = events;
+            this.nbFirst = nbFirst;
+        }
+
+        boolean hasSecondDay()
+        {
+            return end != middle;
+        }
+    }
+
+    /* Uses the GMT difference and daylight saving time of "loc" */
+    public NextPrayer(PTLocation loc, Method conf)
+    {
+        this(null, loc, conf, null);
+    }
+
+    /* Uses the GMT difference and daylight saving time of each day in the
+       time zone "zoneId" (see ZoneYear) instead of those of "loc" */
+    public NextPrayer(PTLocation loc, Method conf, ZoneId zoneId)
+    {
+        this(null, loc, conf, zoneId);
+    }
+
+    /* Same as above with "eph" for the geocentric values of the Sun (see
+       Prayer). "zoneId" may be null. */
+    public NextPrayer(Ephemeris eph, PTLocation loc, Method conf, ZoneId zoneId)
+    {
+        this.loc = new PTLocation(loc);
+        this.conf = new Method(conf);
+        this.zoneId = zoneId;
+        this.prayer = new Prayer(eph);
+        this.times = new int[Prayer.NB_PRAYERS];
+    }
+
+    /* Returns the first prayer strictly after "t", or null if none of the
+       prayers of that day and the next one can be computed */
+    public PrayerEvent getNext(Instant t)
+    {
+        return getNext(t.getEpochSecond());
+    }
+
+    public PrayerEvent getNext(long epochSecond)
+    {
+        PrayerEvent e;
+        Window w = window;
+
+        if (w == null || epochSecond < w.start || epochSecond >= w.middle)
+            w = update(epochSecond);
+
+        e = getNext(w, epochSecond);
+        if (e == null && !w.hasSecondDay())
+            e = getNext(addSecondDay(w), epochSecond);
+        return e;
+    }
+
+    private static PrayerEvent getNext(Window w, long epochSecond)
+    {
+        int i;
+
+        for (i = 0; i < w.events.length; i++)
+            if (w.events[i].epochSecond > epochSecond)
+                return w.events[i];
+        return null;
+    }
+
+    /* Makes the window of the local day of "epochSecond" */
+    private synchronized Window update(long epochSecond)
+    {
+        long day;
+        PrayerEvent[] first;
+        Window w = window;
+
+        if (w != null && epochSecond >= w.start && epochSecond < w.middle)
+            return w;
+
+        if (w != null && epochSecond >= w.middle && epochSecond < w.end) {
+            /* Midnight rollover: the second day is already computed */
+            day = w.firstDay + 1;
+            first = Arrays.copyOfRange(w.events, w.nbFirst, w.events.length);
+        } else {
+            day = getLocalDay(epochSecond);
+            first = getEvents(day);
+        }
+
+        w = new Window(day, getStart(day), getStart(day + 1), getStart(day + 1),
+                       first, first.length);
+        window = w;
+        return w;
+    }
+
+    /* Returns the window "w" with its second day */
+    private synchronized Window addSecondDay(Window w)
+    {
+        PrayerEvent[] second, events;
+        Window current = window;
+
+        /* Another thread may have done it */
+        if (current != null && current.firstDay == w.firstDay
+                && current.hasSecondDay())
+            return current;
+
+        second = getEvents(w.firstDay + 1);
+        events = Arrays.copyOf(w.events, w.events.length + second.length);
+        System.arraycopy(second, 0, events, w.events.length, second.length);
+
+        w = new Window(w.firstDay, w.start, w.middle, getStart(w.firstDay + 2),
+                       events, w.nbFirst);
+        window = w;
+        return w;
+    }
+
+    /* Local day of the instant "epochSecond" */
+    private long getLocalDay(long epochSecond)
+    {
+        if (zoneId != null)
+            return Instant.ofEpochSecond(epochSecond).atZone(zoneId)
+                    .toLocalDate().toEpochDay();
+        return Math.floorDiv(epochSecond + getOffset(0), 86400);
+    }
+
+    /* First second of "day" */
+    private long getStart(long day)
+    {
+        return day * 86400 - getOffset(day);
+    }
+
+    /* Offset (in seconds) of the times of "day" from GMT */
+    private int getOffset(long day)
+    {
+        if (zoneId != null) {
+            if (offsets == null || !offsets.contains(day))
+                offsets = new ZoneYear(zoneId, LocalDate.ofEpochDay(day).getYear());
+            loc.gmtDiff = offsets.getGmtDiff(day);
+            loc.dst = offsets.getDst(day);
+        }
+        return (int)Math.round((loc.gmtDiff + loc.dst) * 3600);
+    }
+
+    /* Returns the computable prayers of "day" sorted by instant */
+    private PrayerEvent[] getEvents(long day)
+    {
+        int i, n = 0, offset;
+        PrayerEvent[] events = new PrayerEvent[Prayer.NB_PRAYERS];
+
+        offset = getOffset(day);
+
+        /* The day after the last one computed only shifts the astronomical
+           cache of "prayer" */
+        prayer.getPackedPrayerTimes(loc, conf, day, day == lastDay + 1 &&
+                                    loc.gmtDiff == lastGmt, times);
+        lastDay = day;
+        lastGmt = loc.gmtDiff;
+
+        for (i = 0; i < Prayer.NB_PRAYERS; i++)
+            if (PackedTime.isValid(times[i]))
+                events[n++] = new PrayerEvent(i, day, day * 86400 - offset +
+                        PackedTime.getSeconds(times[i]),
+                        PackedTime.isExtreme(times[i]));
+
+        events = Arrays.copyOf(events, n);
+        Arrays.sort(events, (a, b) -> Long.compare(a.epochSecond, b.epochSecond));
+        return events;
+    }
+}
@@ -44,6 +44,12 @@ public class PTLocation {
     }
 
     public PTLocation(PTLocation loc)
+    {
+        set(loc);
+    }
+
+    /* Copies the values of "loc" into this location */
+    public void set(PTLocation loc)
     {
         this.degreeLong = loc.degreeLong;
         this.degreeLat = loc.degreeLat;
@@ -0,0 +1,99 @@
+/************************************************************************
+ * ------------
+ * Description:
+ * ------------
+ *  Copyright (c) 2003-2006, 2009 Arabeyes, Thamer Mahmoud
+ *  Copyright (c) 2015, Djalel Chefrour conversion to Java.
+ *
+ *  A full featured Muslim Prayer Times calculator
+ *
+ *  Most of the astronomical values and formulas used in this file are based
+ *  upon a subset of the VSOP87 planetary theory developed by Jean Meeus. Page
+ *  and formula numbers in-line below are references to his book: Astronomical
+ *  Algorithms. Willmann-Bell, second edition, 1998.
+ *
+ * (www.arabeyes.org - under LGPL license - see COPYING file)
+ ************************************************************************/
+
+package org.arabeyes.prayertime;
+
+/* Prayer times packed in an int, for compact storage (see PackedTimeTable):
+    - bits 0-16     seconds since local midnight (0 to 86399)
+    - bit 17        INVALID: the prayer cannot be computed (99:99)
+    - bit 18        EXTREME: the time has been calculated through extreme
+                    latitude methods (see PrayerTime.isExtreme)
+   Packed times are never negative. */
+public final class PackedTime {
+    public static final int SECONDS_MASK = 0x1ffff;
+    public static final int INVALID = 1 << 17;
+    public static final int EXTREME = 1 << 18;
+
+    private PackedTime()
+    {
+    }
+
+    /* Packs "seconds" since local midnight, or Prayer.INVALID_TIME */
+    public static int pack(int seconds, boolean extreme)
+    {
+        int t = (seconds == Prayer.INVALID_TIME) ? INVALID : seconds;
+
+        return extreme ? t | EXTREME : t;
+    }
+
+    public static int pack(PrayerTime pt)
+    {
+        if (pt.hour == 99)
+            return pack(Prayer.INVALID_TIME, pt.isExtreme != 0);
+        return pack(pt.hour * 3600 + pt.minute * 60 + pt.second, pt.isExtreme != 0);
+    }
+
+    /* Returns the seconds since local midnight, or Prayer.INVALID_TIME */
+    public static int getSeconds(int t)
+    {
+        return ((t & INVALID) != 0) ? Prayer.INVALID_TIME : t & SECONDS_MASK;
+    }
+
+    /* The hour and minute are 99 and the second 0 for an invalid time, as
+       in PrayerTime */
+    public static int getHour(int t)
+    {
+        return ((t & INVALID) != 0) ? 99 : (t & SECONDS_MASK) / 3600;
+    }
+
+    public static int getMinute(int t)
+    {
+        return ((t & INVALID) != 0) ? 99 : ((t & SECONDS_MASK) / 60) % 60;
+    }
+
+    public static int getSecond(int t)
+    {
+        return ((t & INVALID) != 0) ? 0 : (t & SECONDS_MASK) % 60;
+    }
+
+    public static boolean isValid(int t)
+    {
+        return (t & INVALID) == 0;
+    }
+
+    public static boolean isExtreme(int t)
+    {
+        return (t & EXTREME) != 0;
+    }
+
+    /* Copies the packed time "t" into "pt" */
+    public static void unpack(int t, PrayerTime pt)
+    {
+        pt.hour = getHour(t);
+        pt.minute = getMinute(t);
+        pt.second = getSecond(t);
+        pt.isExtreme = isExtreme(t) ? 1 : 0;
+    }
+
+    public static PrayerTime toPrayerTime(int t)
+    {
+        PrayerTime pt = new PrayerTime();
+
+        unpack(t, pt);
+        return pt;
+    }
+}
@@ -0,0 +1,115 @@
+/************************************************************************
+ * ------------
+ * Description:
+ * ------------
+ *  Copyright (c) 2003-2006, 2009 Arabeyes, Thamer Mahmoud
+ *  Copyright (c) 2015, Djalel Chefrour conversion to Java.
+ *
+ *  A full featured Muslim Prayer Times calculator
+ *
+ *  Most of the astronomical values and formulas used in this file are based
+ *  upon a subset of the VSOP87 planetary theory developed by Jean Meeus. Page
+ *  and formula numbers in-line below are references to his book: Astronomical
+ *  Algorithms. Willmann-Bell, second edition, 1998.
+ *
+ * (www.arabeyes.org - under LGPL license - see COPYING file)
+ ************************************************************************/
+
+package org.arabeyes.prayertime;
+
+/* This class holds the prayer times of consecutive days packed in a single
+   int array (see PackedTime), about a tenth of the memory of the same days
+   as PrayerTime objects. The times of a day are contiguous:
+    - times[0]        is the first day's Fajr
+    - times[7]        is the second day's Shurooq
+    - ... and so on (times[day * Prayer.NB_PRAYERS + prayer]).
+   The accessors take the prayer then the day offset from the first date of
+   the table, as in PrayerTimeTable, and do not allocate. */
+public class PackedTimeTable {
+    public int nbDays;          /* Number of days in the table */
+    public int[] times;         /* packed prayer times */
+
+    public PackedTimeTable(int nbDays)
+    {
+        this.nbDays = nbDays;
+        times = new int[Prayer.NB_PRAYERS * nbDays];
+    }
+
+    public PackedTimeTable(PrayerTimeTable table)
+    {
+        this(table.nbDays);
+
+        int i, j;
+        for (i = 0; i < nbDays; i++)
+            for (j = 0; j < Prayer.NB_PRAYERS; j++)
+                times[i * Prayer.NB_PRAYERS + j] = PackedTime.pack(
+                        (table.hour[j][i] == 99) ? Prayer.INVALID_TIME
+                        : table.hour[j][i] * 3600 + table.minute[j][i] * 60
+                        + table.second[j][i], table.isExtreme[j][i] != 0);
+    }
+
+    /* Returns the packed time of one prayer of one day */
+    public int get(int prayer, int day)
+    {
+        return times[day * Prayer.NB_PRAYERS + prayer];
+    }
+
+    public void set(int prayer, int day, PrayerTime pt)
+    {
+        times[day * Prayer.NB_PRAYERS + prayer] = PackedTime.pack(pt);
+    }
+
+    /* Returns the seconds since local midnight, or Prayer.INVALID_TIME */
+    public int getSeconds(int prayer, int day)
+    {
+        return PackedTime.getSeconds(get(prayer, day));
+    }
+
+    public int getHour(int prayer, int day)
+    {
+        return PackedTime.getHour(get(prayer, day));
+    }
+
+    public int getMinute(int prayer, int day)
+    {
+        return PackedTime.getMinute(get(prayer, day));
+    }
+
+    public int getSecond(int prayer, int day)
+    {
+        return PackedTime.getSecond(get(prayer, day));
+    }
+
+    public boolean isValid(int prayer, int day)
+    {
+        return PackedTime.isValid(get(prayer, day));
+    }
+
+    public boolean isExtreme(int prayer, int day)
+    {
+        return PackedTime.isExtreme(get(prayer, day));
+    }
+
+    /* Returns the prayer time of one day as a PrayerTime object */
+    public PrayerTime getPrayerTime(int prayer, int day)
+    {
+        return PackedTime.toPrayerTime(get(prayer, day));
+    }
+
+    /* Returns the same days as a PrayerTimeTable */
+    public PrayerTimeTable toPrayerTimeTable()
+    {
+        int i, j, t;
+        PrayerTimeTable table = new PrayerTimeTable(nbDays);
+
+        for (i = 0; i < nbDays; i++)
+            for (j = 0; j < Prayer.NB_PRAYERS; j++) {
+                t = times[i * Prayer.NB_PRAYERS + j];
+                table.hour[j][i] = PackedTime.getHour(t);
+                table.minute[j][i] = PackedTime.getMinute(t);
+                table.second[j][i] = PackedTime.getSecond(t);
+                table.isExtreme[j][i] = PackedTime.isExtreme(t) ? 1 : 0;
+            }
+        return table;
+    }
+}
@@ -18,12 +18,17 @@
 package org.arabeyes.prayertime;
 
 import java.lang.Math;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.Date;
-import java.util.Calendar;
-import java.util.GregorianCalendar;
+import java.util.TimeZone;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class Prayer {
     public static final int NB_PRAYERS = 6;
+    public static final int INVALID_TIME = -1;  /* Invalid prayer time in seconds
+                                                   (i.e. 99:99) */
 
     private static final double DEF_IMSAAK_INTERVAL = 10;
     private static final double DEF_ROUND_SEC = 30 ;
@@ -54,37 +59,111 @@ public class Prayer {
     private static final int ISHAA = 5;
     private static final int IMSAAK = 6;
     private static final int NEXTFAJR = 7;
+    private static final int MIDNIGHT = 8;
+    private static final int LASTTHIRD = 9;
 
     private int lastDayOfYear;
     private double julianDay;
+    private double sinLat, cosLat;  /* of the location of the current day */
     private AstroValues astroCache;
+    private AstroDay astroDay;
+    private Ephemeris ephemeris;
+
+    /* AstroDay and cache of each precision tier (created when first used),
+       the two fields above being those of the tier of the current day */
+    private AstroDay[] astroDays;
+    private AstroValues[] astroCaches;
+
+    /* Time zone of the Date arguments (the default one at creation unless
+       given to the constructor) */
+    private final TimeZone zone;
+
+    /* Scratch values reused from one call to the next */
+    private double[] tempPrayer;
+    private int[] isExtreme;
+    private AstroValues topAstro;
+    private AstroValues exAstroPrev;
+    private AstroValues exAstroNext;
+    private PTLocation exLoc;
+    private Method imsaakConf;
+    private PTLocation zoneLoc;
+    private double[] exPrayer;
+    private GoodDayFilter goodDays;
+
+
+    /* Sets the Julian day and the number of days of the year of the day
+       "epochDay" (see LocalDate.toEpochDay) */
+    private void getDayInfo(long epochDay, double gmt)
+    {
+        lastDayOfYear = AstroDay.getDaysInYear(AstroDay.getYear(epochDay));
+        julianDay = AstroDay.getJulianDay(epochDay, gmt);
+    }
 
-
-    private void getDayInfo(Date date, double gmt)
+    /* Selects the AstroDay and cache of the precision tier "precision" */
+    private void selectPrecision(int precision)
     {
-        GregorianCalendar cal = new GregorianCalendar();
-        cal.setTime(date);
-        cal.set(Calendar.MONTH, Calendar.DECEMBER);
-        cal.set(Calendar.DATE, 31);
-        lastDayOfYear = cal.get(Calendar.DAY_OF_YEAR);
+        int tier = AstroDay.getTier(precision);
 
-        julianDay = AstroDay.getJulianDay(date, gmt);
+        if (astroDays[tier] == null) {
+            astroDays[tier] = new AstroDay(ephemeris, tier);
+            astroCaches[tier] = new AstroValues();
+        }
+        astroDay = astroDays[tier];
+        astroCache = astroCaches[tier];
     }
 
     private PrayerTime[] getPrayerTimesByDay(PTLocation loc, Method conf, int type)
+    {
+        int i;
+        PrayerTime[] pt = new PrayerTime[NB_PRAYERS];
+
+        getBaseTimesByDay(loc, conf, tempPrayer, isExtreme);
+
+        for (i=0; i<NB_PRAYERS; i++) {
+            pt[i] = new PrayerTime();
+            pt[i].isExtreme = isExtreme[i];
+        }
+
+        /* Final Step: Fill the Prayer array by doing decimal degree to
+         * Prayer structure conversion */
+        if (type == IMSAAK || type == NEXTFAJR) 
+            base6hm(tempPrayer[0], loc, conf, pt[0], type);
+        else {
+            for (i=0; i<NB_PRAYERS; i++) 
+                base6hm(tempPrayer[i], loc, conf, pt[i], i);
+        }
+
+        return pt;
+    }
+
+    /* Computes the prayer times of the current Julian day as Base-10 numbers
+     * (99 if invalid) and sets their extreme calculation status */
+    private void getBaseTimesByDay(PTLocation loc, Method conf, double[] tempPrayer,
+                                   int[] isExtreme)
     {
         int i, invalid;
         double zu, sh, mg, fj, is, ar;
         double lat, lon, dec;
-        double[] tempPrayer = new double[NB_PRAYERS];
-        PrayerTime[] pt = new PrayerTime[NB_PRAYERS];
-        AstroValues tAstro = new AstroValues();
-        AstroDay astroDay = new AstroDay();     // TODO null?
+        AstroValues tAstro = topAstro;
+        PreparedLocation prepared;
 
         lat = loc.degreeLat; 
         lon = loc.degreeLong;
         invalid = 0;
 
+        /* The latitude terms are computed once for the day (or once for a
+         * PreparedLocation) */
+        prepared = PreparedLocation.getPrepared(loc);
+        if (prepared != null) {
+            sinLat = prepared.sinLat;
+            cosLat = prepared.cosLat;
+        } else {
+            sinLat = Math.sin(Angle.DEG_TO_RAD(lat));
+            cosLat = Math.cos(Angle.DEG_TO_RAD(lat));
+        }
+
+        selectPrecision(conf.precision);
+
         /* Start by filling the tAstro structure with the appropriate astronomical
          * values for this day. We also pass the cache structure to update and check
          * if the actual values are already available. */
@@ -93,12 +172,12 @@ public class Prayer {
 
         /* Get Prayer Times formulae results for this day of year and this
          * location. The results are NOT the actual prayer times */
-        fj   = getFajIsh (lat, dec, conf.fajrAng);
+        fj   = getFajIsh (sinLat, cosLat, dec, conf.fajrAng);
         sh   = astroDay.getSunrise(loc, tAstro);
         zu   = getZuhr (lon, tAstro);
-        ar   = getAssr (lat, dec, conf.mathhab);
+        ar   = getAssr (lat, sinLat, cosLat, dec, conf.mathhab);
         mg   = astroDay.getSunset(loc, tAstro);
-        is   = getFajIsh (lat, dec, conf.ishaaAng);
+        is   = getFajIsh (sinLat, cosLat, dec, conf.ishaaAng);
 
         /* Calculate all prayer times as Base-10 numbers in Normal circumstances */ 
         /* Fajr */   
@@ -140,7 +219,7 @@ public class Prayer {
 
         /* Reset status of extreme switches */
         for (i=0; i<NB_PRAYERS; i++) {
-            pt[i] = new PrayerTime();
+            isExtreme[i] = 0;
         }
 
         if ((conf.extreme != NONE_EX) && !((conf.extreme == GOOD_INVALID || 
@@ -150,14 +229,12 @@ public class Prayer {
                         conf.extreme == HALF_INVALID) &&
                     (invalid == 0)))
         {
-            double exdecPrev, exdecNext, degnLat;
+            double degnLat, sinNLat, cosNLat;
             double exZu=99, exFj=99, exIs=99, exAr=99, exIm=99, exSh=99, exMg=99;
             double portion = 0;
             double nGoodDay = 0;
             int exinterval = 0;
-            PTLocation exLoc = new PTLocation(loc);     // TODO null?
-            AstroValues exAstroPrev;
-            AstroValues exAstroNext;
+            boolean found = false;
 
             switch(conf.extreme)
             {
@@ -168,13 +245,16 @@ public class Prayer {
 
                     /* FIXIT: we cannot compute this when interval is set because
                      * angle==0 . Only the if-invalid methods would work */
+                    exLoc.set(loc);
                     exLoc.degreeLat = conf.nearestLat;
-                    exFj = getFajIsh(conf.nearestLat, dec, conf.fajrAng);
-                    exIm = getFajIsh(conf.nearestLat, dec, conf.imsaakAng);
+                    sinNLat = Math.sin(Angle.DEG_TO_RAD(conf.nearestLat));
+                    cosNLat = Math.cos(Angle.DEG_TO_RAD(conf.nearestLat));
+                    exFj = getFajIsh(sinNLat, cosNLat, dec, conf.fajrAng);
+                    exIm = getFajIsh(sinNLat, cosNLat, dec, conf.imsaakAng);
                     exSh = astroDay.getSunrise(exLoc, tAstro);
-                    exAr = getAssr(conf.nearestLat, dec, conf.mathhab);
+                    exAr = getAssr(conf.nearestLat, sinNLat, cosNLat, dec, conf.mathhab);
                     exMg = astroDay.getSunset(exLoc, tAstro);
-                    exIs = getFajIsh(conf.nearestLat, dec, conf.ishaaAng);
+                    exIs = getFajIsh(sinNLat, cosNLat, dec, conf.ishaaAng);
 
 
                     switch(conf.extreme)
@@ -185,29 +265,29 @@ public class Prayer {
                             tempPrayer[3] = zu + exAr;
                             tempPrayer[4] = exMg;
                             tempPrayer[5] = zu + exIs;
-                            pt[0].isExtreme = 1;
-                            pt[1].isExtreme = 1;
-                            pt[2].isExtreme = 1;
-                            pt[3].isExtreme = 1;
-                            pt[4].isExtreme = 1;
-                            pt[5].isExtreme = 1;
+                            isExtreme[0] = 1;
+                            isExtreme[1] = 1;
+                            isExtreme[2] = 1;
+                            isExtreme[3] = 1;
+                            isExtreme[4] = 1;
+                            isExtreme[5] = 1;
                             break;
 
                         case LAT_ALWAYS:
                             tempPrayer[0] = zu - exFj;
                             tempPrayer[5] = zu + exIs;
-                            pt[0].isExtreme = 1;
-                            pt[5].isExtreme = 1;
+                            isExtreme[0] = 1;
+                            isExtreme[5] = 1;
                             break;
 
                         case LAT_INVALID:
                             if (tempPrayer[0] == 99) {
                                 tempPrayer[0] = zu - exFj;
-                                pt[0].isExtreme = 1;
+                                isExtreme[0] = 1;
                             }
                             if (tempPrayer[5] == 99) {
                                 tempPrayer[5] = zu + exIs;
-                                pt[5].isExtreme = 1;
+                                isExtreme[5] = 1;
                             }
                             break;
                     }
@@ -219,50 +299,43 @@ public class Prayer {
                 case GOOD_INVALID:
                 case GOOD_INVALID_SAME:
 
-                    exAstroPrev = new AstroValues(astroCache);
-                    exAstroNext = new AstroValues(astroCache);  // TODO null?
+                    exAstroPrev.set(astroCache);
+                    exAstroNext.set(astroCache);
 
-                    /* Start by getting last or next nearest Good Day */
-                    for(i=0; i <= lastDayOfYear; i++)
+                    /* Start by getting last or next nearest Good Day. The days
+                     * that cannot be good days are skipped (see GoodDayFilter) */
+                    for (i=0; i<NB_PRAYERS; i++)
+                        exPrayer[i] = 99;
+                    goodDays.prepare(julianDay, lastDayOfYear, lat,
+                            conf.fajrAng, conf.ishaaAng);
+                    for(i=0; i <= lastDayOfYear && !found; i++)
                     {
-
                         /* Last closest day */
                         nGoodDay = julianDay - i;
-                        astroDay.getAstroValuesByDay(nGoodDay, loc, exAstroPrev, tAstro);
-                        exdecPrev = Angle.DEG_TO_RAD(tAstro.dec[1]);
-                        exFj = getFajIsh(lat, exdecPrev, conf.fajrAng);
-                        if (exFj != 99)
-                        {
-                            exIs = getFajIsh(lat, exdecPrev, conf.ishaaAng);
-                            if (exIs != 99)
-                            {
-                                exZu = getZuhr(lon, tAstro);
-                                exSh = astroDay.getSunrise(loc, tAstro);
-                                exAr = getAssr(lat, exdecPrev, conf.mathhab);
-                                exMg = astroDay.getSunset(loc, tAstro);
-                                break;
-                            }
-                        }
+                        if (goodDays.isCandidate(nGoodDay))
+                            found = getGoodDay(nGoodDay, loc, conf, exAstroPrev, exPrayer);
 
                         /* Next closest day */
                         nGoodDay = julianDay + i;
-                        astroDay.getAstroValuesByDay(nGoodDay, loc, exAstroNext, tAstro);
-                        exdecNext = Angle.DEG_TO_RAD(tAstro.dec[1]);
-                        exFj = getFajIsh(lat, exdecNext, conf.fajrAng);
-                        if (exFj != 99)
-                        {
-                            exIs = getFajIsh(lat, exdecNext, conf.ishaaAng);
-                            if (exIs != 99)
-                            {
-                                exZu = getZuhr(lon, tAstro);
-                                exSh = astroDay.getSunrise(loc, tAstro);
-                                exAr = getAssr (lat, exdecNext, conf.mathhab);
-                                exMg = astroDay.getSunset(loc, tAstro);
-                                break;
-                            }
-                        }
+                        if (!found && goodDays.isCandidate(nGoodDay))
+                            found = getGoodDay(nGoodDay, loc, conf, exAstroNext, exPrayer);
+                    }
+
+                    /* Without any good day, all the days are checked anyway so
+                     * that the values left by the last ones are the same */
+                    for(i=0; i <= lastDayOfYear && !found; i++)
+                    {
+                        found = getGoodDay(julianDay - i, loc, conf, exAstroPrev, exPrayer) ||
+                            getGoodDay(julianDay + i, loc, conf, exAstroNext, exPrayer);
                     }
 
+                    exFj = exPrayer[FAJR];
+                    exSh = exPrayer[SHUROOQ];
+                    exZu = exPrayer[ZUHR];
+                    exAr = exPrayer[ASSR];
+                    exMg = exPrayer[MAGHRIB];
+                    exIs = exPrayer[ISHAA];
+
                     switch(conf.extreme)
                     {
                         case GOOD_ALL:
@@ -273,25 +346,25 @@ public class Prayer {
                             tempPrayer[4] = exMg;
                             tempPrayer[5] = exZu + exIs;
                             for (i=0; i<NB_PRAYERS; i++)
-                                pt[i].isExtreme = 1;
+                                isExtreme[i] = 1;
                             break;
                         case GOOD_INVALID:
                             if (tempPrayer[0] == 99) {
                                 tempPrayer[0] = exZu - exFj;
-                                pt[0].isExtreme = 1;
+                                isExtreme[0] = 1;
                             }
                             if (tempPrayer[5] == 99) {
                                 tempPrayer[5] = exZu + exIs;
-                                pt[5].isExtreme = 1;
+                                isExtreme[5] = 1;
                             }
                             break;
                         case GOOD_INVALID_SAME:
                             if ((tempPrayer[0] == 99) || (tempPrayer[5] == 99))
                             {
                                 tempPrayer[0] = exZu - exFj;
-                                pt[0].isExtreme = 1;
+                                isExtreme[0] = 1;
                                 tempPrayer[5] = exZu + exIs;
-                                pt[5].isExtreme = 1;
+                                isExtreme[5] = 1;
                             }
                             break;
                     }
@@ -331,13 +404,13 @@ public class Prayer {
                             if (conf.extreme == HALF_INVALID)
                                 tempPrayer[0] =  portion - (conf.fajrInv / 60.0);
                             else tempPrayer[0] = tempPrayer[1] - portion;
-                            pt[0].isExtreme = 1;
+                            isExtreme[0] = 1;
                         }
                         if (tempPrayer[5] == 99) {
                             if  (conf.extreme == HALF_INVALID)
                                 tempPrayer[5] = portion + (conf.ishaaInv / 60.0) ;
                             else tempPrayer[5] = tempPrayer[4] + portion;
-                            pt[5].isExtreme = 1;
+                            isExtreme[5] = 1;
                         }
                     } else { /* for the always methods */
 
@@ -350,8 +423,8 @@ public class Prayer {
                             tempPrayer[0] = tempPrayer[1] - portion;
                             tempPrayer[5] = tempPrayer[4] + portion;
                         }
-                        pt[0].isExtreme = 1;
-                        pt[5].isExtreme = 1;
+                        isExtreme[0] = 1;
+                        isExtreme[5] = 1;
                     }
                     break;
 
@@ -360,20 +433,20 @@ public class Prayer {
                      * ishaaInv structure members */
                     tempPrayer[0] = tempPrayer[1];
                     tempPrayer[5] = tempPrayer[4];
-                    pt[0].isExtreme = 1;
-                    pt[5].isExtreme = 1;
+                    isExtreme[0] = 1;
+                    isExtreme[5] = 1;
                     break;
 
                 case MIN_INVALID:
                     if (tempPrayer[0] == 99) {
                         exinterval = (int)(conf.fajrInv / 60.0);
                         tempPrayer[0] = tempPrayer[1] - exinterval;
-                        pt[0].isExtreme = 1;
+                        isExtreme[0] = 1;
                     }
                     if (tempPrayer[5] == 99) {
                         exinterval = (int)(conf.ishaaInv / 60.0);
                         tempPrayer[5] = tempPrayer[4] + exinterval;
-                        pt[5].isExtreme = 1;
+                        isExtreme[5] = 1;
                     }
                     break;
             } /* end switch */
@@ -397,35 +470,67 @@ public class Prayer {
             }
         }
 
-        /* Final Step: Fill the Prayer array by doing decimal degree to
-         * Prayer structure conversion */
-        if (type == IMSAAK || type == NEXTFAJR) 
-            base6hm(tempPrayer[0], loc, conf, pt[0], type);
-        else {
-            for (i=0; i<NB_PRAYERS; i++) 
-                base6hm(tempPrayer[i], loc, conf, pt[i], i);
-        }
+    }
 
-        return pt;
+    /* Checks if both Fajr and Ishaa can be computed on the day "jd" for the
+     * Nearest Good Day methods, and fills "exPrayer" with the prayers of that
+     * day if so. Fajr (and Ishaa if Fajr is valid) are set in any case. */
+    private boolean getGoodDay(double jd, PTLocation loc, Method conf,
+                               AstroValues exAstro, double[] exPrayer)
+    {
+        double exdec;
+        AstroValues tAstro = topAstro;
+
+        astroDay.getAstroValuesByDay(jd, loc, exAstro, tAstro);
+        exdec = Angle.DEG_TO_RAD(tAstro.dec[1]);
+        exPrayer[FAJR] = getFajIsh(sinLat, cosLat, exdec, conf.fajrAng);
+        if (exPrayer[FAJR] != 99)
+        {
+            exPrayer[ISHAA] = getFajIsh(sinLat, cosLat, exdec, conf.ishaaAng);
+            if (exPrayer[ISHAA] != 99)
+            {
+                exPrayer[ZUHR] = getZuhr(loc.degreeLong, tAstro);
+                exPrayer[SHUROOQ] = astroDay.getSunrise(loc, tAstro);
+                exPrayer[ASSR] = getAssr(loc.degreeLat, sinLat, cosLat, exdec,
+                                         conf.mathhab);
+                exPrayer[MAGHRIB] = astroDay.getSunset(loc, tAstro);
+                return true;
+            }
+        }
+        return false;
     }
 
     private void base6hm(double bs, PTLocation loc, Method conf, PrayerTime pt, int type)
     {
-        double min, sec;
+        int secs = base6hm(bs, loc, conf, type);
 
-        /* Set to 99 and return if prayer is invalid */
-        if (bs == 99) {
+        if (secs == INVALID_TIME) {
             pt.hour = 99;
             pt.minute = 99;
             pt.second = 0;
             return;
         }
 
+        pt.hour = secs / 3600;
+        pt.minute = (secs / 60) % 60;
+        pt.second = secs % 60;
+    }
+
+    /* Returns the prayer time in seconds since local midnight */
+    private int base6hm(double bs, PTLocation loc, Method conf, int type)
+    {
+        double min, sec;
+
+        /* Return if prayer is invalid */
+        if (bs == 99)
+            return INVALID_TIME;
+
         /* Add offsets */
         if (conf.offset == 1) {
             if (type == IMSAAK || type == NEXTFAJR)
                 bs += (conf.offList[0] / 60.0);
-            else  bs += (conf.offList[type] / 60.0);
+            else if (type < NB_PRAYERS)
+                bs += (conf.offList[type] / 60.0);
         }
 
         /* Fix after minus offsets before midnight */
@@ -474,6 +579,8 @@ public class Prayer {
 
                 case SHUROOQ:
                 case IMSAAK:
+                case MIDNIGHT:
+                case LASTTHIRD:
                     sec = 0;
                     break;
             }
@@ -484,20 +591,16 @@ public class Prayer {
         if (bs >= 24)
             bs = bs % 24;
 
-        pt.hour = (int)bs;
-        pt.minute = (int)min;
-        pt.second = (int)sec;
+        return (int)bs * 3600 + (int)min * 60 + (int)sec;
     }
 
 
-    private double getFajIsh(double lat, double dec, double Ang)
+    private double getFajIsh(double sinLat, double cosLat, double dec, double Ang)
     {
-        double rlat = Angle.DEG_TO_RAD(lat);
-
         /* Compute the hour angle */
         double part1 = Math.sin(Angle.DEG_TO_RAD(-Ang)) - 
-                            (Math.sin (rlat) * Math.sin (dec));
-        double part2 = Math.cos (rlat) * Math.cos (dec);
+                            (sinLat * Math.sin (dec));
+        double part2 = cosLat * Math.cos (dec);
         double part3 = part1 / part2;
 
         if ( part3 < -Angle.INVALID_TRIGGER || part3 > Angle.INVALID_TRIGGER)
@@ -508,11 +611,11 @@ public class Prayer {
 
     private double getZuhr(double lon, AstroValues astro)
     {
-        AstroDay astroDay = new AstroDay();     // TODO null?
         return astroDay.getTransit(lon, astro);
     }
 
-    private double getAssr(double lat, double dec, int mathhab)
+    private double getAssr(double lat, double sinLat, double cosLat, double dec,
+                           int mathhab)
     {
         double part1, part2, part3, part4, ndec;
         double rlat = Angle.DEG_TO_RAD(lat);
@@ -527,8 +630,8 @@ public class Prayer {
 
         part2 = (Math.PI/2.0) - Math.atan(part1);
         /* Compute the hour angle */
-        part3 = Math.sin(part2) - (Math.sin(rlat) * Math.sin(ndec));
-        part4 = (part3 / (Math.cos(rlat) * Math.cos(ndec)));
+        part3 = Math.sin(part2) - (sinLat * Math.sin(ndec));
+        part4 = (part3 / (cosLat * Math.cos(ndec)));
 
         if ( part4 < -Angle.INVALID_TRIGGER || part4 > Angle.INVALID_TRIGGER)
             return 99;
@@ -538,7 +641,37 @@ public class Prayer {
 
     public Prayer()
     {
-        astroCache = new AstroValues();
+        this(null);
+    }
+
+    /* Uses "eph" for the geocentric values of the Sun (e.g. a SolarCache)
+       instead of computing the VSOP87 series for each day */
+    public Prayer(Ephemeris eph)
+    {
+        this(eph, TimeZone.getDefault());
+    }
+
+    /* Same as above with the dates of the Date arguments taken in "zone".
+       The other constructors use the default time zone at the time they are
+       called: a later TimeZone.setDefault has no effect on this object. */
+    public Prayer(Ephemeris eph, TimeZone zone)
+    {
+        astroDays = new AstroDay[Method.PRECISION_FAST + 1];
+        astroCaches = new AstroValues[Method.PRECISION_FAST + 1];
+        ephemeris = eph;
+        selectPrecision(Method.PRECISION_FULL);
+        this.zone = zone;
+
+        tempPrayer = new double[NB_PRAYERS];
+        isExtreme = new int[NB_PRAYERS];
+        topAstro = new AstroValues();
+        exAstroPrev = new AstroValues();
+        exAstroNext = new AstroValues();
+        exLoc = new PTLocation(0, 0, 0, 0, 0, 0, 0);
+        imsaakConf = new Method();
+        zoneLoc = new PTLocation(0, 0, 0, 0, 0, 0, 0);
+        exPrayer = new double[NB_PRAYERS];
+        goodDays = new GoodDayFilter();
     }
 
 
@@ -549,18 +682,241 @@ public class Prayer {
         - Prayer[1].hour      is today's Shorooq hours
         - ... and so on until...
         - Prayer[5].minute    is today's Ishaa minutes 
+       The day of a Date argument is taken in the time zone of this object
+       (see the constructors), not in the current default time zone.
     */
     public PrayerTime[] getPrayerTimes(PTLocation loc, Method conf, Date date)
     {
-        getDayInfo(date, loc.gmtDiff);
-        return getPrayerTimesByDay(loc, conf, 0);
+        return getPrayerTimes(loc, conf, AstroDay.getEpochDay(date, zone));
     }           
+
+    public PrayerTime[] getPrayerTimes(PTLocation loc, Method conf, LocalDate date)
+    {
+        return getPrayerTimes(loc, conf, date.toEpochDay());
+    }
+
+    /* Same as above for the day "epochDay" (days since 1970-01-01, as in
+       LocalDate.toEpochDay), without any calendar object */
+    public PrayerTime[] getPrayerTimes(PTLocation loc, Method conf, long epochDay)
+    {
+        getDayInfo(epochDay, loc.gmtDiff);
+        return getPrayerTimesByDay(loc, conf, 0);
+    }
+
+    /* Same as "getPrayerTimes" but without creating any object. The array
+       "times" is filled with the six prayer times in seconds since local
+       midnight (hour * 3600 + minute * 60 + second), or INVALID_TIME if a
+       prayer cannot be computed. The returned value holds the extreme
+       calculation status: bit i is set if times[i] has been calculated
+       through extreme latitude methods. */
+    public int getPrayerTimes(PTLocation loc, Method conf, Date date, int[] times)
+    {
+        return getPrayerTimes(loc, conf, AstroDay.getEpochDay(date, zone), times);
+    }
+
+    public int getPrayerTimes(PTLocation loc, Method conf, LocalDate date, int[] times)
+    {
+        return getPrayerTimes(loc, conf, date.toEpochDay(), times);
+    }
+
+    public int getPrayerTimes(PTLocation loc, Method conf, long epochDay, int[] times)
+    {
+        getDayInfo(epochDay, loc.gmtDiff);
+        return getPrayerTimesByDay(loc, conf, times);
+    }
+
+    /* Same as above with the extreme calculation status packed with each
+       time (see PackedTime) */
+    public void getPackedPrayerTimes(PTLocation loc, Method conf, LocalDate date,
+                                     int[] times)
+    {
+        getPackedPrayerTimes(loc, conf, date.toEpochDay(), times);
+    }
+
+    public void getPackedPrayerTimes(PTLocation loc, Method conf, long epochDay,
+                                     int[] times)
+    {
+        getPackedPrayerTimes(loc, conf, epochDay, false, times);
+    }
+
+    /* Same as above. If "next" is true, "epochDay" is the day after the one
+       of the previous call for the same location, and the Julian day is
+       stepped (in the same year) as in the range methods, so that the
+       astronomical cache is shifted instead of computed again. */
+    void getPackedPrayerTimes(PTLocation loc, Method conf, long epochDay,
+                              boolean next, int[] times)
+    {
+        int i, extreme;
+
+        if (next && AstroDay.getYear(epochDay) == AstroDay.getYear(epochDay - 1))
+            julianDay++;
+        else getDayInfo(epochDay, loc.gmtDiff);
+
+        extreme = getPrayerTimesByDay(loc, conf, times);
+        for (i = 0; i < NB_PRAYERS; i++)
+            times[i] = PackedTime.pack(times[i], (extreme & (1 << i)) != 0);
+    }
+
+    /* Returns the prayer times of the days "from" to "to" (included) as a
+       lazily computed stream. Each part of a parallel stream computes its
+       days in sequence with its own Prayer object, which uses the same
+       ephemeris as this one, so that the astronomical cache is shifted from
+       one day to the next (see DaySpliterator). "loc" and "conf" are only
+       read. */
+    public Stream<PrayerDay> days(PTLocation loc, Method conf, LocalDate from,
+                                  LocalDate to)
+    {
+        return StreamSupport.stream(new DaySpliterator(ephemeris, loc, conf,
+                    from.toEpochDay(), to.toEpochDay() + 1), false);
+    }
+
+    /* Same as above for the Julian day of "astro", which already holds the
+       geocentric values of that day (e.g. shared by several locations) */
+    int getPrayerTimes(PTLocation loc, Method conf, AstroValues astro,
+                       int lastDayOfYear, int[] times)
+    {
+        this.julianDay = astro.jd;
+        this.lastDayOfYear = lastDayOfYear;
+        selectPrecision(conf.precision);
+        astroCache.set(astro);
+        return getPrayerTimesByDay(loc, conf, times);
+    }
+
+    private int getPrayerTimesByDay(PTLocation loc, Method conf, int[] times)
+    {
+        int i, extreme = 0;
+
+        getBaseTimesByDay(loc, conf, tempPrayer, isExtreme);
+
+        for (i = 0; i < NB_PRAYERS; i++) {
+            times[i] = base6hm(tempPrayer[i], loc, conf, i);
+            if (isExtreme[i] != 0)
+                extreme |= 1 << i;
+        }
+
+        return extreme;
+    }
+
+    /* "getPrayerTimesForRange" fills a table with the prayer times of "nDays"
+       consecutive days starting at "startDate" (see PrayerTimeTable). The
+       days are walked by stepping the Julian day, so the astronomical cache
+       is shifted forward and only one new day is computed per day. */
+    public PrayerTimeTable getPrayerTimesForRange(PTLocation loc, Method conf,
+                                                  Date startDate, int nDays)
+    {
+        return getPrayerTimesForRange(loc, conf,
+                AstroDay.getEpochDay(startDate, zone), nDays);
+    }
+
+    public PrayerTimeTable getPrayerTimesForRange(PTLocation loc, Method conf,
+                                                  LocalDate startDate, int nDays)
+    {
+        return getPrayerTimesForRange(loc, conf, startDate.toEpochDay(), nDays);
+    }
+
+    public PrayerTimeTable getPrayerTimesForRange(PTLocation loc, Method conf,
+                                                  long startDay, int nDays)
+    {
+        return getPackedTimesForRange(loc, conf, null, startDay,
+                nDays).toPrayerTimeTable();
+    }
+
+    /* Same as above in the time zone "zoneId": the GMT difference and the
+       daylight saving time of each day are taken from the zone instead of
+       "loc". The offsets are resolved once per year (see ZoneYear). */
+    public PrayerTimeTable getPrayerTimesForRange(PTLocation loc, Method conf,
+                                                  ZoneId zoneId, LocalDate startDate,
+                                                  int nDays)
+    {
+        return getPackedTimesForRange(loc, conf, zoneId, startDate.toEpochDay(),
+                nDays).toPrayerTimeTable();
+    }
+
+    /* Same as "getPrayerTimesForRange" with the times packed in a single
+       array (see PackedTimeTable) */
+    public PackedTimeTable getPackedTimesForRange(PTLocation loc, Method conf,
+                                                  LocalDate startDate, int nDays)
+    {
+        return getPackedTimesForRange(loc, conf, null, startDate.toEpochDay(),
+                nDays);
+    }
+
+    public PackedTimeTable getPackedTimesForRange(PTLocation loc, Method conf,
+                                                  ZoneId zoneId, LocalDate startDate,
+                                                  int nDays)
+    {
+        return getPackedTimesForRange(loc, conf, zoneId, startDate.toEpochDay(),
+                nDays);
+    }
+
+    private PackedTimeTable getPackedTimesForRange(PTLocation loc, Method conf,
+                                                   ZoneId zoneId, long startDay,
+                                                   int nDays)
+    {
+        int i, j, year = 0;
+        long day;
+        double gmt = 0;
+        ZoneYear offsets = null;
+        PackedTimeTable table = new PackedTimeTable(nDays);
+
+        if (zoneId != null) {
+            zoneLoc.set(loc);
+            loc = zoneLoc;
+        }
+
+        for (i = 0; i < nDays; i++)
+        {
+            day = startDay + i;
+            if (zoneId != null) {
+                if (offsets == null || !offsets.contains(day))
+                    offsets = new ZoneYear(zoneId, LocalDate.ofEpochDay(day).getYear());
+                loc.gmtDiff = offsets.getGmtDiff(day);
+                loc.dst = offsets.getDst(day);
+            }
+
+            /* Delta-t is computed per year, so the Julian day is computed
+             * again on the first day of each year (and when the GMT
+             * difference changes) */
+            if (i == 0 || AstroDay.getYear(day) != year || loc.gmtDiff != gmt) {
+                year = AstroDay.getYear(day);
+                gmt = loc.gmtDiff;
+                getDayInfo(day, gmt);
+            }
+
+            getBaseTimesByDay(loc, conf, tempPrayer, isExtreme);
+            for (j = 0; j < NB_PRAYERS; j++)
+                table.times[i * NB_PRAYERS + j] = PackedTime.pack(
+                        base6hm(tempPrayer[j], loc, conf, j), isExtreme[j] != 0);
+
+            julianDay++;
+        }
+
+        return table;
+    }
      
     /* Extended prayer times */
     public PrayerTime getImsaak(PTLocation loc, Method conf, Date date)
     {
-        Method tmpConf = new Method(conf);      // TODO null?
+        return getImsaak(loc, conf, AstroDay.getEpochDay(date, zone));
+    }
+
+    public PrayerTime getImsaak(PTLocation loc, Method conf, LocalDate date)
+    {
+        return getImsaak(loc, conf, date.toEpochDay());
+    }
 
+    public PrayerTime getImsaak(PTLocation loc, Method conf, long epochDay)
+    {
+        getDayInfo (epochDay, loc.gmtDiff);
+        return PackedTime.toPrayerTime(getImsaakByDay(loc, conf));
+    }
+
+    /* Computes Imsaak on the current Julian day as a packed time */
+    private int getImsaakByDay(PTLocation loc, Method conf)
+    {
+        Method tmpConf = imsaakConf;
+
+        tmpConf.set(conf);
         if (conf.fajrInv != 0) { 
             if (conf.imsaakInv == 0)
                 tmpConf.fajrInv += DEF_IMSAAK_INTERVAL;
@@ -574,17 +930,15 @@ public class Prayer {
             tmpConf.fajrAng += conf.imsaakAng;
         }
  
-        getDayInfo (date, loc.gmtDiff);
-        PrayerTime[] pt = getPrayerTimesByDay(loc, tmpConf, IMSAAK);
+        getBaseTimesByDay(loc, tmpConf, tempPrayer, isExtreme);
 
         /* FIXIT: We probably need to check whether it's possible to compute
          * Imsaak normally for some extreme methods first */
         /* In case of an extreme Fajr time calculation use intervals for Imsaak and
          * compute again */
-        if (pt[0].isExtreme != 0)
+        if (isExtreme[0] != 0)
         {
-            tmpConf = null;
-            tmpConf = new Method(conf);
+            tmpConf.set(conf);
 
             if ( conf.imsaakInv == 0)
             {
@@ -595,31 +949,109 @@ public class Prayer {
                 tmpConf.offList[0] -= conf.imsaakInv;
                 tmpConf.offset = 1;
             }
-            pt = null;
-            pt = getPrayerTimesByDay(loc, tmpConf, IMSAAK);
+            getBaseTimesByDay(loc, tmpConf, tempPrayer, isExtreme);
         }
 
-        return new PrayerTime(pt[0]);
+        return PackedTime.pack(base6hm(tempPrayer[0], loc, tmpConf, IMSAAK),
+                isExtreme[0] != 0);
     }
 
     public PrayerTime getNextDayImsaak(PTLocation loc, Method conf, Date date)
     {
-        GregorianCalendar cal = new GregorianCalendar();
-        cal.setTime(date);
-        cal.add(Calendar.DATE, 1);
+        return getImsaak(loc, conf, AstroDay.getEpochDay(date, zone) + 1);
+    }
 
-        return getImsaak(loc, conf, cal.getTime());
+    public PrayerTime getNextDayImsaak(PTLocation loc, Method conf, LocalDate date)
+    {
+        return getImsaak(loc, conf, date.toEpochDay() + 1);
     }
 
     public PrayerTime getNextDayFajr(PTLocation loc, Method conf, Date date)
     {
-        getDayInfo(date, loc.gmtDiff);
+        return getNextDayFajr(loc, conf, AstroDay.getEpochDay(date, zone));
+    }
+
+    public PrayerTime getNextDayFajr(PTLocation loc, Method conf, LocalDate date)
+    {
+        return getNextDayFajr(loc, conf, date.toEpochDay());
+    }
+
+    public PrayerTime getNextDayFajr(PTLocation loc, Method conf, long epochDay)
+    {
+        getDayInfo(epochDay, loc.gmtDiff);
         julianDay++;
         PrayerTime[] pt = getPrayerTimesByDay(loc, conf, NEXTFAJR);
 
         return new PrayerTime(pt[0]);
     }
 
- 
+    /* "getDaySchedule" computes all the times of a day at once (see
+       DaySchedule): the six prayers, Imsaak, the next day's Fajr and Imsaak
+       (the same as getImsaak, getNextDayFajr and getNextDayImsaak), and the
+       middle and the last third of the night between Maghrib and the next
+       day's Fajr. The next day only shifts the astronomical values by one
+       day, and Imsaak reuses them. */
+    public DaySchedule getDaySchedule(PTLocation loc, Method conf, Date date)
+    {
+        return getDaySchedule(loc, conf, AstroDay.getEpochDay(date, zone));
+    }
+
+    public DaySchedule getDaySchedule(PTLocation loc, Method conf, LocalDate date)
+    {
+        return getDaySchedule(loc, conf, date.toEpochDay());
+    }
+
+    public DaySchedule getDaySchedule(PTLocation loc, Method conf, long epochDay)
+    {
+        int[] times = new int[DaySchedule.NB_TIMES];
+
+        getDaySchedule(loc, conf, epochDay, times);
+        return new DaySchedule(epochDay, times);
+    }
+
+    /* Same as above into the packed times "times" (DaySchedule.NB_TIMES) */
+    public void getDaySchedule(PTLocation loc, Method conf, long epochDay,
+                               int[] times)
+    {
+        int i;
+        boolean extreme;
+        double maghrib, nextFajr, night;
+
+        getDayInfo(epochDay, loc.gmtDiff);
+        getBaseTimesByDay(loc, conf, tempPrayer, isExtreme);
+        for (i = 0; i < NB_PRAYERS; i++)
+            times[i] = PackedTime.pack(base6hm(tempPrayer[i], loc, conf, i),
+                    isExtreme[i] != 0);
+        maghrib = tempPrayer[MAGHRIB];
+
+        times[DaySchedule.IMSAAK] = getImsaakByDay(loc, conf);
+
+        /* Next day (see getNextDayFajr) */
+        julianDay++;
+        getBaseTimesByDay(loc, conf, tempPrayer, isExtreme);
+        times[DaySchedule.NEXT_FAJR] = PackedTime.pack(base6hm(tempPrayer[0], loc,
+                    conf, NEXTFAJR), isExtreme[0] != 0);
+        nextFajr = tempPrayer[0];
+
+        /* getNextDayImsaak computes the next day from its date, which only
+           differs from the Julian day above on a new year (delta-t) */
+        getDayInfo(epochDay + 1, loc.gmtDiff);
+        times[DaySchedule.NEXT_IMSAAK] = getImsaakByDay(loc, conf);
+
+        /* The night from Maghrib to the next day's Fajr */
+        if (maghrib == 99 || nextFajr == 99) {
+            times[DaySchedule.MIDNIGHT] = PackedTime.INVALID;
+            times[DaySchedule.LAST_THIRD] = PackedTime.INVALID;
+        } else {
+            night = nextFajr + 24 - maghrib;
+            extreme = PackedTime.isExtreme(times[MAGHRIB]) ||
+                PackedTime.isExtreme(times[DaySchedule.NEXT_FAJR]);
+            times[DaySchedule.MIDNIGHT] = PackedTime.pack(base6hm(maghrib +
+                        night / 2, loc, conf, MIDNIGHT), extreme);
+            times[DaySchedule.LAST_THIRD] = PackedTime.pack(base6hm(maghrib +
+                        night * 2 / 3, loc, conf, LASTTHIRD), extreme);
+        }
+    }
+
     /* utilities */
 }
@@ -0,0 +1,208 @@
+/************************************************************************
+ * ------------
+ * Description:
+ * ------------
+ *  Copyright (c) 2003-2006, 2009 Arabeyes, Thamer Mahmoud
+ *  Copyright (c) 2015, Djalel Chefrour conversion to Java.
+ *
+ *  A full featured Muslim Prayer Times calculator
+ *
+ *  Most of the astronomical values and formulas used in this file are based
+ *  upon a subset of the VSOP87 planetary theory developed by Jean Meeus. Page
+ *  and formula numbers in-line below are references to his book: Astronomical
+ *  Algorithms. Willmann-Bell, second edition, 1998.
+ *
+ * (www.arabeyes.org - under LGPL license - see COPYING file)
+ ************************************************************************/
+
+package org.arabeyes.prayertime;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/* A "Prayer" object keeps the current Julian day and the astronomical cache
+   between calls, so it must not be shared between threads. This class offers
+   the same interface but can be shared: it has no mutable state of its own
+   and each calling thread works on its own "Prayer" object, which also keeps
+   that thread's astronomical cache from one call to the next. The location
+   and method given by the caller are only read. The day of a Date argument
+   is taken in the time zone given to the constructor, or else the default
+   time zone when the calculator was created (a later TimeZone.setDefault is
+   ignored, see Prayer). */
+public final class PrayerCalculator {
+    private final ThreadLocal<Prayer> prayer;
+    private final Ephemeris ephemeris;
+
+    public PrayerCalculator()
+    {
+        this(null);
+    }
+
+    /* Uses "eph" for the geocentric values of the Sun (see Prayer) */
+    public PrayerCalculator(Ephemeris eph)
+    {
+        this(eph, TimeZone.getDefault());
+    }
+
+    /* Same as above with the Date arguments in "zone" */
+    public PrayerCalculator(Ephemeris eph, TimeZone zone)
+    {
+        prayer = ThreadLocal.withInitial(() -> new Prayer(eph, zone));
+        ephemeris = eph;
+    }
+
+    public PrayerTime[] getPrayerTimes(PTLocation loc, Method conf, Date date)
+    {
+        return prayer.get().getPrayerTimes(loc, conf, date);
+    }
+
+    public int getPrayerTimes(PTLocation loc, Method conf, Date date, int[] times)
+    {
+        return prayer.get().getPrayerTimes(loc, conf, date, times);
+    }
+
+    public PrayerTimeTable getPrayerTimesForRange(PTLocation loc, Method conf,
+                                                  Date startDate, int nDays)
+    {
+        return prayer.get().getPrayerTimesForRange(loc, conf, startDate, nDays);
+    }
+
+    public PrayerTime getImsaak(PTLocation loc, Method conf, Date date)
+    {
+        return prayer.get().getImsaak(loc, conf, date);
+    }
+
+    public PrayerTime getNextDayImsaak(PTLocation loc, Method conf, Date date)
+    {
+        return prayer.get().getNextDayImsaak(loc, conf, date);
+    }
+
+    public PrayerTime getNextDayFajr(PTLocation loc, Method conf, Date date)
+    {
+        return prayer.get().getNextDayFajr(loc, conf, date);
+    }
+
+    public DaySchedule getDaySchedule(PTLocation loc, Method conf, Date date)
+    {
+        return prayer.get().getDaySchedule(loc, conf, date);
+    }
+
+    public PrayerTime[] getPrayerTimes(PTLocation loc, Method conf, LocalDate date)
+    {
+        return prayer.get().getPrayerTimes(loc, conf, date);
+    }
+
+    public int getPrayerTimes(PTLocation loc, Method conf, LocalDate date, int[] times)
+    {
+        return prayer.get().getPrayerTimes(loc, conf, date, times);
+    }
+
+    public PrayerTimeTable getPrayerTimesForRange(PTLocation loc, Method conf,
+                                                  LocalDate startDate, int nDays)
+    {
+        return prayer.get().getPrayerTimesForRange(loc, conf, startDate, nDays);
+    }
+
+    public PrayerTimeTable getPrayerTimesForRange(PTLocation loc, Method conf,
+                                                  ZoneId zoneId, LocalDate startDate,
+                                                  int nDays)
+    {
+        return prayer.get().getPrayerTimesForRange(loc, conf, zoneId, startDate,
+                nDays);
+    }
+
+    public void getPackedPrayerTimes(PTLocation loc, Method conf, LocalDate date,
+                                     int[] times)
+    {
+        prayer.get().getPackedPrayerTimes(loc, conf, date, times);
+    }
+
+    public PackedTimeTable getPackedTimesForRange(PTLocation loc, Method conf,
+                                                  LocalDate startDate, int nDays)
+    {
+        return prayer.get().getPackedTimesForRange(loc, conf, startDate, nDays);
+    }
+
+    public PackedTimeTable getPackedTimesForRange(PTLocation loc, Method conf,
+                                                  ZoneId zoneId, LocalDate startDate,
+                                                  int nDays)
+    {
+        return prayer.get().getPackedTimesForRange(loc, conf, zoneId, startDate,
+                nDays);
+    }
+
+    public PrayerTime getImsaak(PTLocation loc, Method conf, LocalDate date)
+    {
+        return prayer.get().getImsaak(loc, conf, date);
+    }
+
+    public PrayerTime getNextDayImsaak(PTLocation loc, Method conf, LocalDate date)
+    {
+        return prayer.get().getNextDayImsaak(loc, conf, date);
+    }
+
+    public PrayerTime getNextDayFajr(PTLocation loc, Method conf, LocalDate date)
+    {
+        return prayer.get().getNextDayFajr(loc, conf, date);
+    }
+
+    public DaySchedule getDaySchedule(PTLocation loc, Method conf, LocalDate date)
+    {
+        return prayer.get().getDaySchedule(loc, conf, date);
+    }
+
+    public PrayerTime[] getPrayerTimes(PTLocation loc, Method conf, long epochDay)
+    {
+        return prayer.get().getPrayerTimes(loc, conf, epochDay);
+    }
+
+    public int getPrayerTimes(PTLocation loc, Method conf, long epochDay, int[] times)
+    {
+        return prayer.get().getPrayerTimes(loc, conf, epochDay, times);
+    }
+
+    public PrayerTimeTable getPrayerTimesForRange(PTLocation loc, Method conf,
+                                                  long startDay, int nDays)
+    {
+        return prayer.get().getPrayerTimesForRange(loc, conf, startDay, nDays);
+    }
+
+    public void getPackedPrayerTimes(PTLocation loc, Method conf, long epochDay,
+                                     int[] times)
+    {
+        prayer.get().getPackedPrayerTimes(loc, conf, epochDay, times);
+    }
+
+    public PrayerTime getImsaak(PTLocation loc, Method conf, long epochDay)
+    {
+        return prayer.get().getImsaak(loc, conf, epochDay);
+    }
+
+    public PrayerTime getNextDayFajr(PTLocation loc, Method conf, long epochDay)
+    {
+        return prayer.get().getNextDayFajr(loc, conf, epochDay);
+    }
+
+    public DaySchedule getDaySchedule(PTLocation loc, Method conf, long epochDay)
+    {
+        return prayer.get().getDaySchedule(loc, conf, epochDay);
+    }
+
+    public void getDaySchedule(PTLocation loc, Method conf, long epochDay,
+                               int[] times)
+    {
+        prayer.get().getDaySchedule(loc, conf, epochDay, times);
+    }
+
+    /* See Prayer.days */
+    public Stream<PrayerDay> days(PTLocation loc, Method conf, LocalDate from,
+                                  LocalDate to)
+    {
+        return StreamSupport.stream(new DaySpliterator(ephemeris, loc, conf,
+                    from.toEpochDay(), to.toEpochDay() + 1), false);
+    }
+}
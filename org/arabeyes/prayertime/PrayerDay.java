@@ -0,0 +1,56 @@
+/************************************************************************
+ * ------------
+ * Description:
+ * ------------
+ *  Copyright (c) 2003-2006, 2009 Arabeyes, Thamer Mahmoud
+ *  Copyright (c) 2015, Djalel Chefrour conversion to Java.
+ *
+ *  A full featured Muslim Prayer Times calculator
+ *
+ *  Most of the astronomical values and formulas used in this file are based
+ *  upon a subset of the VSOP87 planetary theory developed by Jean Meeus. Page
+ *  and formula numbers in-line below are references to his book: Astronomical
+ *  Algorithms. Willmann-Bell, second edition, 1998.
+ *
+ * (www.arabeyes.org - under LGPL license - see COPYING file)
+ ************************************************************************/
+package org.arabeyes.prayertime;
+
+import java.time.LocalDate;
+
+/* This class holds the prayer times of one day as PackedTime values, e.g.
+   the elements of Prayer.days:
+    - times[0]        is the Fajr time
+    - ... and so on until times[5] for Ishaa */
+public class PrayerDay {
+    public long epochDay;      /* Day (days since 1970-01-01) */
+    public int[] times;        /* packed prayer times (see PackedTime) */
+
+    public PrayerDay(long epochDay, int[] times)
+    {
+        this.epochDay = epochDay;
+        this.times = times;
+    }
+
+    public LocalDate getDate()
+    {
+        return LocalDate.ofEpochDay(epochDay);
+    }
+
+    /* Returns the seconds since local midnight, or Prayer.INVALID_TIME */
+    public int getSeconds(int prayer)
+    {
+        return PackedTime.getSeconds(times[prayer]);
+    }
+
+    public boolean isExtreme(int prayer)
+    {
+        return PackedTime.isExtreme(times[prayer]);
+    }
+
+    /* Returns one prayer time as a PrayerTime object */
+    public PrayerTime getPrayerTime(int prayer)
+    {
+        return PackedTime.toPrayerTime(times[prayer]);
+    }
+}
@@ -0,0 +1,49 @@
+/************************************************************************
+ * ------------
+ * Description:
+ * ------------
+ *  Copyright (c) 2003-2006, 2009 Arabeyes, Thamer Mahmoud
+ *  Copyright (c) 2015, Djalel Chefrour conversion to Java.
+ *
+ *  A full featured Muslim Prayer Times calculator
+ *
+ *  Most of the astronomical values and formulas used in this file are based
+ *  upon a subset of the VSOP87 planetary theory developed by Jean Meeus. Page
+ *  and formula numbers in-line below are references to his book: Astronomical
+ *  Algorithms. Willmann-Bell, second edition, 1998.
+ *
+ * (www.arabeyes.org - under LGPL license - see COPYING file)
+ ************************************************************************/
+package org.arabeyes.prayertime;
+
+import java.time.Instant;
+
+/* One prayer time at an absolute instant, as returned by NextPrayer */
+public final class PrayerEvent {
+    public final int prayer;        /* 0 (Fajr) to 5 (Ishaa) */
+    public final long epochDay;     /* local day of the prayer (days since
+                                       1970-01-01) */
+    public final long epochSecond;  /* instant of the prayer (seconds since
+                                       1970-01-01T00:00Z) */
+    public final boolean isExtreme; /* computed through an extreme latitude
+                                       method (see PrayerTime.isExtreme) */
+
+    public PrayerEvent(int prayer, long epochDay, long epochSecond,
+                       boolean isExtreme)
+    {
+        this.prayer = prayer;
+        this.epochDay = epochDay;
+        this.epochSecond = epochSecond;
+        this.isExtreme = isExtreme;
+    }
+
+    public Instant getInstant()
+    {
+        return Instant.ofEpochSecond(epochSecond);
+    }
+
+    public String toString()
+    {
+        return "PrayerEvent[" + prayer + ", " + getInstant() + "]";
+    }
+}
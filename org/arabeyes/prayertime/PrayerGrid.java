@@ -0,0 +1,266 @@
+/************************************************************************
+ * ------------
+ * Description:
+ * ------------
+ *  Copyright (c) 2003-2006, 2009 Arabeyes, Thamer Mahmoud
+ *  Copyright (c) 2015, Djalel Chefrour conversion to Java.
+ *
+ *  A full featured Muslim Prayer Times calculator
+ *
+ *  Most of the astronomical values and formulas used in this file are based
+ *  upon a subset of the VSOP87 planetary theory developed by Jean Meeus. Page
+ *  and formula numbers in-line below are references to his book: Astronomical
+ *  Algorithms. Willmann-Bell, second edition, 1998.
+ *
+ * (www.arabeyes.org - under LGPL license - see COPYING file)
+ ************************************************************************/
+package org.arabeyes.prayertime;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.LongAdder;
+
+/* Approximate prayer times of one day and method for any point, from the
+   exact times of a grid of latitudes and longitudes.
+
+   The prayer times move by 4 minutes per degree of longitude, so the grid
+   keeps the local mean times of its nodes (computed with a GMT difference
+   of longitude / 15 hours), which change slowly in both directions. A query
+   interpolates the 4 nodes around the point (bilinear) and converts the
+   result to the GMT difference and daylight saving time of the point.
+
+   Nodes where a prayer is invalid or computed through an extreme latitude
+   method, and nodes where the times bend too much to be interpolated (see
+   the tolerance below), are marked. A query in a cell with such a node
+   computes the exact times with Prayer instead ("fallback").
+
+   The grid uses the location at sea level with the standard pressure and
+   temperature, and the Sun of local mean midnight instead of the midnight
+   of the time zone. Largest differences with the exact times (in seconds,
+   no rounding, tolerance of 10 seconds, random points within 60 degrees of
+   latitude on random days of 2000-2039, MWL method, see
+   ValidatePrayerGrid):
+                  Fallback Fajr Shurooq Zuhr Assr Maghrib Ishaa
+      step 0.5       2.5%   10       2    2    4       2     8
+      step 1         6.8%    9       2    2    5       3     8
+      step 2        24.9%    8       4    2    7       5     7
+   The mean differences are about 0.5 second (1 for Fajr and Ishaa). */
+public final class PrayerGrid {
+    private static final int BAD = Integer.MIN_VALUE;
+    private static final int DEF_TOLERANCE = 10;   /* seconds */
+
+    private final Method conf;
+    private final long epochDay;
+    private final double step;
+    private final int nbLats, nbLongs;
+    private final int[] times;      /* local mean times by node and prayer,
+                                       or BAD */
+    private final ThreadLocal<Prayer> prayer;
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    /* Computes the grid of "date" with nodes every "step" degrees, and a
+       tolerance of 10 seconds (see below) */
+    public PrayerGrid(Method conf, LocalDate date, double step)
+    {
+        this(null, conf, date.toEpochDay(), step, DEF_TOLERANCE);
+    }
+
+    /* Same as above with "eph" for the geocentric values of the Sun (see
+       Prayer). The cells where the times bend too much for the bilinear
+       interpolation to stay within about "tolerance" seconds (near the
+       latitudes where a prayer becomes invalid, or where Assr changes of
+       formula) are computed exactly. */
+    public PrayerGrid(Ephemeris eph, Method conf, long epochDay, double step,
+                      int tolerance)
+    {
+        int i, j, k, node, extreme;
+        int[] t = new int[Prayer.NB_PRAYERS];
+        boolean[] sharp;
+        Method exact = new Method(conf);
+        Prayer p = new Prayer(eph);
+        PTLocation loc = new PTLocation(0, 0, 0, 0, 0, 1010, 10);
+
+        this.conf = new Method(conf);
+        this.epochDay = epochDay;
+        this.step = step;
+        this.nbLats = (int)Math.ceil(180 / step) + 1;
+        this.nbLongs = (int)Math.ceil(360 / step) + 1;
+        this.times = new int[nbLats * nbLongs * Prayer.NB_PRAYERS];
+        this.prayer = ThreadLocal.withInitial(() -> new Prayer(eph));
+
+        /* Unrounded times, rounded after interpolation. The extreme methods
+           that only replace the invalid times (odd numbers from 3 to 13) are
+           not needed, as these nodes are computed exactly anyway. */
+        exact.round = 0;
+        if (conf.extreme >= 3 && conf.extreme <= 13 && conf.extreme % 2 == 1)
+            exact.extreme = 0;
+
+        /* By longitude first: the nodes of one longitude have the same GMT
+           difference, so they share the astronomical values of the day */
+        for (j = 0; j < nbLongs; j++)
+        {
+            loc.degreeLong = -180 + j * step;
+            loc.gmtDiff = loc.degreeLong / 15;
+            for (i = 0; i < nbLats; i++)
+            {
+                loc.degreeLat = Math.min(90, -90 + i * step);
+                node = (i * nbLongs + j) * Prayer.NB_PRAYERS;
+
+                extreme = p.getPrayerTimes(loc, exact, epochDay, t);
+                for (k = 0; k < Prayer.NB_PRAYERS; k++)
+                    times[node + k] = (t[k] == Prayer.INVALID_TIME ||
+                                       (extreme & (1 << k)) != 0) ? BAD : t[k];
+            }
+        }
+
+        /* The error of the bilinear interpolation is about 1/8 of the second
+           differences of the nodes */
+        sharp = new boolean[times.length];
+        for (i = 0; i < nbLats; i++)
+            for (j = 0; j < nbLongs; j++)
+                for (k = 0; k < Prayer.NB_PRAYERS; k++)
+                    sharp[(i * nbLongs + j) * Prayer.NB_PRAYERS + k] =
+                            isSharp(i, j, k, 4 * tolerance);
+        for (i = 0; i < times.length; i++)
+            if (sharp[i])
+                times[i] = BAD;
+    }
+
+    /* Returns true if the second difference of prayer "k" at node (i, j) is
+       larger than "limit" (seconds) in latitude or longitude */
+    private boolean isSharp(int i, int j, int k, int limit)
+    {
+        int v = times[(i * nbLongs + j) * Prayer.NB_PRAYERS + k];
+
+        if (v == BAD)
+            return false;
+        if (i > 0 && i < nbLats - 1 &&
+                getSecondDifference(v, (i - 1) * nbLongs + j,
+                                    (i + 1) * nbLongs + j, k) > limit)
+            return true;
+        return j > 0 && j < nbLongs - 1 &&
+                getSecondDifference(v, i * nbLongs + j - 1,
+                                    i * nbLongs + j + 1, k) > limit;
+    }
+
+    private int getSecondDifference(int v, int node0, int node1, int k)
+    {
+        int v0 = times[node0 * Prayer.NB_PRAYERS + k];
+        int v1 = times[node1 * Prayer.NB_PRAYERS + k];
+
+        /* Next to an invalid node */
+        if (v0 == BAD || v1 == BAD)
+            return Integer.MAX_VALUE;
+        return Math.abs(unwrap(v0, v) + unwrap(v1, v) - 2 * v);
+    }
+
+    public long getEpochDay()
+    {
+        return epochDay;
+    }
+
+    public double getStep()
+    {
+        return step;
+    }
+
+    public long getQueries()
+    {
+        return queries.sum();
+    }
+
+    /* Number of queries computed exactly */
+    public long getFallbacks()
+    {
+        return fallbacks.sum();
+    }
+
+    /* Same as Prayer.getPrayerTimes into "times" for the day and method of
+       this grid. The seconds are interpolated (or exact, see above). */
+    public int getPrayerTimes(PTLocation loc, int[] times)
+    {
+        int i, j, k, n00, n01, n10, n11, v0, t;
+        double lon, x, y, f;
+
+        queries.increment();
+
+        lon = loc.degreeLong - 360 * Math.floor((loc.degreeLong + 180) / 360);
+        y = (Math.max(-90, Math.min(90, loc.degreeLat)) + 90) / step;
+        x = (lon + 180) / step;
+        i = Math.min((int)y, nbLats - 2);
+        j = Math.min((int)x, nbLongs - 2);
+        y -= i;
+        x -= j;
+
+        n00 = (i * nbLongs + j) * Prayer.NB_PRAYERS;
+        n01 = n00 + Prayer.NB_PRAYERS;
+        n10 = n00 + nbLongs * Prayer.NB_PRAYERS;
+        n11 = n10 + Prayer.NB_PRAYERS;
+
+        for (k = 0; k < Prayer.NB_PRAYERS; k++)
+            if (this.times[n00 + k] == BAD || this.times[n01 + k] == BAD ||
+                    this.times[n10 + k] == BAD || this.times[n11 + k] == BAD)
+                return fallback(loc, times);
+
+        for (k = 0; k < Prayer.NB_PRAYERS; k++)
+        {
+            /* The nodes may be on both sides of local midnight */
+            v0 = this.times[n00 + k];
+            f = (1 - y) * ((1 - x) * v0 + x * unwrap(this.times[n01 + k], v0))
+                + y * ((1 - x) * unwrap(this.times[n10 + k], v0)
+                       + x * unwrap(this.times[n11 + k], v0));
+
+            /* From local mean time to the time of "loc" */
+            t = (int)Math.floor(f + (loc.gmtDiff + loc.dst) * 3600
+                                - loc.degreeLong * 240);
+            times[k] = Math.floorMod(round(t, k), 86400);
+        }
+        return 0;
+    }
+
+    public PrayerTime[] getPrayerTimes(PTLocation loc)
+    {
+        int i, extreme;
+        int[] t = new int[Prayer.NB_PRAYERS];
+        PrayerTime[] pt = new PrayerTime[Prayer.NB_PRAYERS];
+
+        extreme = getPrayerTimes(loc, t);
+        for (i = 0; i < Prayer.NB_PRAYERS; i++)
+            pt[i] = PackedTime.toPrayerTime(PackedTime.pack(t[i],
+                    (extreme & (1 << i)) != 0));
+        return pt;
+    }
+
+    /* Computes the exact times of "loc" */
+    private int fallback(PTLocation loc, int[] times)
+    {
+        fallbacks.increment();
+        return prayer.get().getPrayerTimes(loc, conf, epochDay, times);
+    }
+
+    private static int unwrap(int v, int v0)
+    {
+        if (v - v0 > 43200)
+            return v - 86400;
+        if (v0 - v > 43200)
+            return v + 86400;
+        return v;
+    }
+
+    /* Same rounding as Prayer (see Method.round) */
+    private int round(int t, int prayer)
+    {
+        int sec = Math.floorMod(t, 60);
+
+        switch (conf.round)
+        {
+            case 1:
+                return t - sec + (sec >= 30 ? 60 : 0);
+            case 2:
+                return t - sec + (prayer != 1 && sec >= 30 ? 60 : 0);
+            case 3:
+                return t - sec + (prayer != 1 && sec >= 1 ? 60 : 0);
+        }
+        return t;
+    }
+}
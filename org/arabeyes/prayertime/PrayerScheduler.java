@@ -0,0 +1,428 @@
+/************************************************************************
+ * ------------
+ * Description:
+ * ------------
+ *  Copyright (c) 2003-2006, 2009 Arabeyes, Thamer Mahmoud
+ *  Copyright (c) 2015, Djalel Chefrour conversion to Java.
+ *
+ *  A full featured Muslim Prayer Times calculator
+ *
+ *  Most of the astronomical values and formulas used in this file are based
+ *  upon a subset of the VSOP87 planetary theory developed by Jean Meeus. Page
+ *  and formula numbers in-line below are references to his book: Astronomical
+ *  Algorithms. Willmann-Bell, second edition, 1998.
+ *
+ * (www.arabeyes.org - under LGPL license - see COPYING file)
+ ************************************************************************/
+package org.arabeyes.prayertime;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/* Fires the prayers of many subscriptions (location, method, listener).
+
+   The subscriptions wait in a hierarchical timing wheel with a resolution
+   of one second: 256 slots of one second, then 3 levels of 64 slots that
+   cover 2^14, 2^20 and 2^26 seconds. Adding or cancelling a subscription
+   is O(1), and each second only looks at the subscriptions of its slot (a
+   subscription of a higher level is moved down when the wheel reaches its
+   slot).
+
+   A subscription only holds the packed prayer times of one day. When one
+   prayer fires, it waits again for the next prayer of that day, and after
+   the last one of the day the next day is computed. The computations use
+   one Prayer object of the scheduler.
+
+   "advance" fires all the prayers due at the time of the clock. It is
+   called every second by the thread of "start", or directly (e.g. with a
+   clock set by the caller). The listeners are called through the executor
+   given at creation (e.g. a thread pool, or a virtual thread per task
+   executor on Java 21+).
+
+   Metrics: the drift is the delay between the time of a prayer and the
+   call of its listener (by the clock); the backlog is the number of
+   listener calls given to the executor and not finished yet, and the lag
+   is the number of seconds of the wheel not processed yet. */
+public final class PrayerScheduler {
+    private static final int ROOT_BITS = 8;
+    private static final int LEVEL_BITS = 6;
+    private static final int NB_LEVELS = 4;
+    private static final int ROOT_SIZE = 1 << ROOT_BITS;
+    private static final int LEVEL_SIZE = 1 << LEVEL_BITS;
+    private static final int CANCELLED = -2;
+    private static final long MAX_DELAY =
+            1L << (ROOT_BITS + (NB_LEVELS - 1) * LEVEL_BITS);
+
+    private final Clock clock;
+    private final Executor executor;
+    private final Prayer prayer;
+    private final int[] times;
+    private final PTLocation zoneLoc;
+    private final Map<ZoneId, ZoneYear> offsets;
+
+    private final Subscription[][] wheel;   /* slot lists by level */
+    private long current;                   /* last second processed */
+    private int nbSubscriptions;
+    private Thread thread;
+
+    private long nbFired;
+    private final AtomicLong nbDone = new AtomicLong();
+    private final AtomicLong totalDrift = new AtomicLong();
+    private final AtomicLong maxDrift = new AtomicLong();
+
+    /* One (location, method, listener) of the scheduler. "loc" and "conf"
+       are only read, and must not change while subscribed. */
+    public static final class Subscription {
+        private final PTLocation loc;
+        private final Method conf;
+        private final ZoneId zoneId;
+        private final PrayerListener listener;
+
+        private final int[] times = new int[Prayer.NB_PRAYERS];
+        private long day;           /* local day of "times" */
+        private int offset;         /* GMT offset (seconds) of "day" */
+        private int prayer;         /* next prayer */
+        private long deadline;      /* its epoch second */
+        private Subscription prev, next;
+        private int level = -1;     /* -1 if not in the wheel (or CANCELLED) */
+        private int slot;
+
+        private Subscription(PTLocation loc, Method conf, ZoneId zoneId,
+                             PrayerListener listener)
+        {
+            this.loc = loc;
+            this.conf = conf;
+            this.zoneId = zoneId;
+            this.listener = listener;
+        }
+
+        public PTLocation getLocation()
+        {
+            return loc;
+        }
+
+        public Method getMethod()
+        {
+            return conf;
+        }
+
+        public ZoneId getZone()
+        {
+            return zoneId;
+        }
+
+        /* Epoch second of the next prayer to fire */
+        public long getDeadline()
+        {
+            return deadline;
+        }
+    }
+
+    public PrayerScheduler(Clock clock, Executor executor)
+    {
+        this(null, clock, executor);
+    }
+
+    /* Same as above with "eph" for the geocentric values of the Sun (see
+       Prayer) */
+    public PrayerScheduler(Ephemeris eph, Clock clock, Executor executor)
+    {
+        int i;
+
+        this.clock = clock;
+        this.executor = executor;
+        this.prayer = new Prayer(eph);
+        this.times = new int[Prayer.NB_PRAYERS];
+        this.zoneLoc = new PTLocation(0, 0, 0, 0, 0, 0, 0);
+        this.offsets = new HashMap<ZoneId, ZoneYear>();
+        this.wheel = new Subscription[NB_LEVELS][];
+        for (i = 0; i < NB_LEVELS; i++)
+            wheel[i] = new Subscription[i == 0 ? ROOT_SIZE : LEVEL_SIZE];
+        this.current = Math.floorDiv(clock.millis(), 1000);
+    }
+
+    /* Subscribes "listener" to the prayers of "loc" after now. The GMT
+       difference and daylight saving time are those of "loc", or of each day
+       in the time zone "zoneId" if not null. */
+    public synchronized Subscription subscribe(PTLocation loc, Method conf,
+                                               ZoneId zoneId,
+                                               PrayerListener listener)
+    {
+        long now = Math.max(current, Math.floorDiv(clock.millis(), 1000));
+        Subscription s = new Subscription(loc, conf, zoneId, listener);
+
+        setDay(s, getLocalDay(s, now));
+        while (!setNext(s, now, Prayer.NB_PRAYERS))
+            setDay(s, s.day + 1);
+        add(s);
+        nbSubscriptions++;
+        return s;
+    }
+
+    /* Returns false if "s" was already cancelled */
+    public synchronized boolean cancel(Subscription s)
+    {
+        if (s.level == CANCELLED)
+            return false;
+        if (s.level >= 0)
+            remove(s);
+        s.level = CANCELLED;
+        nbSubscriptions--;
+        return true;
+    }
+
+    /* Fires the prayers due until the time of the clock. Returns the number
+       of prayers fired. */
+    public synchronized int advance()
+    {
+        int n = 0;
+        long now = Math.floorDiv(clock.millis(), 1000);
+        Subscription s;
+
+        while (current < now)
+        {
+            current++;
+            cascade();
+
+            /* All the subscriptions of this slot are due now */
+            while ((s = wheel[0][(int)(current & (ROOT_SIZE - 1))]) != null)
+            {
+                remove(s);
+                fire(s);
+                n++;
+
+                /* The listener may have cancelled "s" */
+                if (s.level == CANCELLED)
+                    continue;
+                if (!setNext(s, s.deadline, s.prayer)) {
+                    do setDay(s, s.day + 1);
+                    while (!setNext(s, s.deadline, s.prayer));
+                }
+                add(s);
+            }
+        }
+        return n;
+    }
+
+    /* Calls "advance" every second in a daemon thread */
+    public synchronized void start()
+    {
+        if (thread != null)
+            return;
+        thread = new Thread(this::run, "prayer-scheduler");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized void stop()
+    {
+        if (thread == null)
+            return;
+        thread.interrupt();
+        thread = null;
+    }
+
+    private void run()
+    {
+        try {
+            while (!Thread.currentThread().isInterrupted())
+            {
+                advance();
+                Thread.sleep(1000 - Math.floorMod(clock.millis(), 1000));
+            }
+        } catch (InterruptedException e) {
+            /* stopped */
+        }
+    }
+
+    public synchronized int getNbSubscriptions()
+    {
+        return nbSubscriptions;
+    }
+
+    /* Number of prayers fired since creation */
+    public synchronized long getNbFired()
+    {
+        return nbFired;
+    }
+
+    /* Number of listener calls not finished yet */
+    public synchronized long getBacklog()
+    {
+        return nbFired - nbDone.get();
+    }
+
+    /* Number of seconds not processed yet by "advance" */
+    public synchronized long getLag()
+    {
+        return Math.max(0, Math.floorDiv(clock.millis(), 1000) - current);
+    }
+
+    /* Largest and mean drift (in milliseconds) of the listener calls */
+    public long getMaxDrift()
+    {
+        return maxDrift.get();
+    }
+
+    public double getMeanDrift()
+    {
+        long n = nbDone.get();
+
+        return n == 0 ? 0 : (double)totalDrift.get() / n;
+    }
+
+    private void fire(Subscription s)
+    {
+        final Subscription sub = s;
+        final PrayerEvent event = new PrayerEvent(s.prayer, s.day, s.deadline,
+                PackedTime.isExtreme(s.times[s.prayer]));
+
+        nbFired++;
+        executor.execute(() -> {
+            long drift = clock.millis() - event.epochSecond * 1000;
+
+            try {
+                sub.listener.onPrayer(sub, event);
+            } finally {
+                totalDrift.addAndGet(drift);
+                maxDrift.accumulateAndGet(drift, Math::max);
+                nbDone.incrementAndGet();
+            }
+        });
+    }
+
+    /* Sets the next prayer of "s" in its day after the prayer "last" at
+       the epoch second "after" (NB_PRAYERS for none). Prayers are ordered by
+       time, then by index: two prayers may have the same time (e.g. Assr and
+       Maghrib at high latitudes in winter). Returns false if there is none. */
+    private boolean setNext(Subscription s, long after, int last)
+    {
+        int i, next = -1;
+        long t, deadline = Long.MAX_VALUE;
+
+        for (i = 0; i < Prayer.NB_PRAYERS; i++)
+        {
+            if (!PackedTime.isValid(s.times[i]))
+                continue;
+            t = s.day * 86400 - s.offset + PackedTime.getSeconds(s.times[i]);
+            if ((t > after || (t == after && i > last)) && t < deadline) {
+                deadline = t;
+                next = i;
+            }
+        }
+        if (next < 0)
+            return false;
+        s.prayer = next;
+        s.deadline = deadline;
+        return true;
+    }
+
+    /* Computes the prayer times of "day" for "s" */
+    private void setDay(Subscription s, long day)
+    {
+        PTLocation loc = getLocation(s, day);
+
+        prayer.getPackedPrayerTimes(loc, s.conf, day, s.times);
+        s.day = day;
+        s.offset = (int)Math.round((loc.gmtDiff + loc.dst) * 3600);
+    }
+
+    /* Location of "s" with the GMT offset of "day" */
+    private PTLocation getLocation(Subscription s, long day)
+    {
+        ZoneYear year;
+
+        if (s.zoneId == null)
+            return s.loc;
+
+        year = offsets.get(s.zoneId);
+        if (year == null || !year.contains(day)) {
+            year = new ZoneYear(s.zoneId, LocalDate.ofEpochDay(day).getYear());
+            offsets.put(s.zoneId, year);
+        }
+        zoneLoc.set(s.loc);
+        zoneLoc.gmtDiff = year.getGmtDiff(day);
+        zoneLoc.dst = year.getDst(day);
+        return zoneLoc;
+    }
+
+    private long getLocalDay(Subscription s, long epochSecond)
+    {
+        if (s.zoneId != null)
+            return Instant.ofEpochSecond(epochSecond).atZone(s.zoneId)
+                    .toLocalDate().toEpochDay();
+        return Math.floorDiv(epochSecond + Math.round((s.loc.gmtDiff +
+                             s.loc.dst) * 3600), 86400);
+    }
+
+    /* Adds "s" to the slot of its deadline */
+    private void add(Subscription s)
+    {
+        int level;
+        long delay = s.deadline - current, t = s.deadline;
+
+        if (delay >= MAX_DELAY) {
+            /* Moved down when the wheel reaches the last slot */
+            delay = MAX_DELAY - 1;
+            t = current + delay;
+        }
+
+        if (delay < ROOT_SIZE) {
+            level = 0;
+            s.slot = (int)(t & (ROOT_SIZE - 1));
+        } else {
+            for (level = 1; delay >= 1L << (ROOT_BITS + level * LEVEL_BITS); level++)
+                ;
+            s.slot = (int)((t >> (ROOT_BITS + (level - 1) * LEVEL_BITS))
+                           & (LEVEL_SIZE - 1));
+        }
+
+        s.level = level;
+        s.prev = null;
+        s.next = wheel[level][s.slot];
+        if (s.next != null)
+            s.next.prev = s;
+        wheel[level][s.slot] = s;
+    }
+
+    private void remove(Subscription s)
+    {
+        if (s.prev != null)
+            s.prev.next = s.next;
+        else wheel[s.level][s.slot] = s.next;
+        if (s.next != null)
+            s.next.prev = s.prev;
+        s.prev = s.next = null;
+        s.level = -1;
+    }
+
+    /* Moves down the subscriptions of the slots that the wheel reaches at
+       "current" (when the lower levels wrap around) */
+    private void cascade()
+    {
+        int level, slot;
+        Subscription s, next;
+
+        for (level = 1; level < NB_LEVELS; level++)
+        {
+            if ((current & ((1L << (ROOT_BITS + (level - 1) * LEVEL_BITS)) - 1)) != 0)
+                break;
+            slot = (int)((current >> (ROOT_BITS + (level - 1) * LEVEL_BITS))
+                         & (LEVEL_SIZE - 1));
+            s = wheel[level][slot];
+            wheel[level][slot] = null;
+            while (s != null)
+            {
+                next = s.next;
+                add(s);
+                s = next;
+            }
+        }
+    }
+}
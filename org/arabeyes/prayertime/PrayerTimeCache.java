@@ -0,0 +1,284 @@
+/************************************************************************
+ * ------------
+ * Description:
+ * ------------
+ *  Copyright (c) 2003-2006, 2009 Arabeyes, Thamer Mahmoud
+ *  Copyright (c) 2015, Djalel Chefrour conversion to Java.
+ *
+ *  A full featured Muslim Prayer Times calculator
+ *
+ *  Most of the astronomical values and formulas used in this file are based
+ *  upon a subset of the VSOP87 planetary theory developed by Jean Meeus. Page
+ *  and formula numbers in-line below are references to his book: Astronomical
+ *  Algorithms. Willmann-Bell, second edition, 1998.
+ *
+ * (www.arabeyes.org - under LGPL license - see COPYING file)
+ ************************************************************************/
+package org.arabeyes.prayertime;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/* Cache of prayer times shared by nearby locations.
+
+   The locations are quantized into cells of about "cellSize" meters
+   (latitude and longitude) and "heightStep" meters (height above sea
+   level). The times of a cell are computed once at its center and returned
+   for every location of the cell with the same GMT difference, daylight
+   saving time, pressure, temperature and method (see isSameTimes) on the
+   same day. With cells of a few hundred meters, the times rounded to the
+   minute are the same as the exact ones for most locations (see
+   ValidatePrayerCache for the actual rate).
+
+   The days where the center needs an extreme latitude method are not
+   shared: these times may jump by many minutes between nearby locations
+   (e.g. the nearest good day method switches to another day), so they are
+   computed exactly for each location. With the Muslim World League method,
+   rounding to the minute and the default extreme method, the largest
+   differences measured by ValidatePrayerCache (100000 samples) were 1980 s
+   (Fajr) and 540 s (Ishaa) with cells of 200 m, and 2820 s and 1320 s with
+   cells of 1 km, when these days were shared. They are now 60 s for every
+   prayer with cells of 200 m, and 120 s (Fajr) and 60 s with cells of 1 km.
+
+   As SolarCache, the cache is direct-mapped on the hash of the key, so its
+   size is bounded (a new key evicts the entry of its slot) and lookups never
+   lock. Like PrayerCalculator, the cache can be shared between threads. */
+public final class PrayerTimeCache {
+    private static final double METERS_PER_DEGREE =
+            Math.PI / 180 * Angle.EARTH_RADIUS;
+    private static final double MIN_COS_LAT = 0.01;
+
+    /* Prayer times of one cell, method and day */
+    private static final class Entry {
+        final int latCell, longCell, heightCell;
+        final long epochDay;
+        final double gmtDiff, pressure, temperature;
+        final int dst;
+        final Method conf;
+        final int[] times;          /* seconds (see Prayer.getPrayerTimes),
+                                       null to compute them exactly */
+        final int extreme;
+
+        Entry(int latCell, int longCell, int heightCell, long epochDay,
+              PTLocation loc, Method conf, int[] times, int extreme)
+        {
+            this.latCell = latCell;
+            this.longCell = longCell;
+            this.heightCell = heightCell;
+            this.epochDay = epochDay;
+            this.gmtDiff = loc.gmtDiff;
+            this.dst = loc.dst;
+            this.pressure = loc.pressure;
+            this.temperature = loc.temperature;
+            this.conf = new Method(conf);
+            this.times = times;
+            this.extreme = extreme;
+        }
+
+        boolean matches(int latCell, int longCell, int heightCell, long epochDay,
+                        PTLocation loc, Method conf)
+        {
+            return this.latCell == latCell && this.longCell == longCell &&
+                    this.heightCell == heightCell && this.epochDay == epochDay &&
+                    this.gmtDiff == loc.gmtDiff && this.dst == loc.dst &&
+                    this.pressure == loc.pressure &&
+                    this.temperature == loc.temperature &&
+                    isSameTimes(this.conf, conf);
+        }
+    }
+
+    private final double latStep;       /* degrees */
+    private final double heightStep;    /* meters */
+    private final ThreadLocal<Prayer> prayer;
+    private final ThreadLocal<PTLocation> center;
+    private final AtomicReferenceArray<Entry> entries;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /* "capacity" is the number of entries kept, rounded up to a power of 2.
+       "cellSize" and "heightStep" are in meters. */
+    public PrayerTimeCache(int capacity, double cellSize, double heightStep)
+    {
+        this(null, capacity, cellSize, heightStep);
+    }
+
+    /* Same as above with "eph" for the geocentric values of the Sun (see
+       Prayer) */
+    public PrayerTimeCache(Ephemeris eph, int capacity, double cellSize,
+                           double heightStep)
+    {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+
+        this.latStep = cellSize / METERS_PER_DEGREE;
+        this.heightStep = heightStep;
+        this.prayer = ThreadLocal.withInitial(() -> new Prayer(eph));
+        this.center = ThreadLocal.withInitial(() -> new PTLocation(0, 0, 0, 0,
+                0, 0, 0));
+        this.entries = new AtomicReferenceArray<Entry>(size);
+        this.mask = size - 1;
+    }
+
+    public long getHits()
+    {
+        return hits.sum();
+    }
+
+    public long getMisses()
+    {
+        return misses.sum();
+    }
+
+    /* Number of entries replaced by another key */
+    public long getEvictions()
+    {
+        return evictions.sum();
+    }
+
+    public double getHitRatio()
+    {
+        long h = hits.sum(), n = h + misses.sum();
+
+        return n == 0 ? 0 : (double)h / n;
+    }
+
+    public PrayerTime[] getPrayerTimes(PTLocation loc, Method conf, LocalDate date)
+    {
+        int i, extreme;
+        int[] times = new int[Prayer.NB_PRAYERS];
+        PrayerTime[] pt = new PrayerTime[Prayer.NB_PRAYERS];
+
+        extreme = getPrayerTimes(loc, conf, date.toEpochDay(), times);
+        for (i = 0; i < Prayer.NB_PRAYERS; i++)
+            pt[i] = PackedTime.toPrayerTime(PackedTime.pack(times[i],
+                    (extreme & (1 << i)) != 0));
+        return pt;
+    }
+
+    /* Same as Prayer.getPrayerTimes into "times" for the center of the cell
+       of "loc", or for "loc" itself if the center needs an extreme latitude
+       method */
+    public int getPrayerTimes(PTLocation loc, Method conf, long epochDay,
+                              int[] times)
+    {
+        int latCell, longCell, heightCell, idx, extreme;
+        double longStep;
+        PTLocation c;
+        Entry e;
+
+        latCell = (int)Math.floor(loc.degreeLat / latStep);
+        longStep = getLongStep(latCell);
+        longCell = (int)Math.floor(loc.degreeLong / longStep);
+        heightCell = heightStep > 0 ? (int)Math.floor(loc.seaLevel / heightStep) : 0;
+
+        idx = getIndex(latCell, longCell, heightCell, epochDay,
+                getFingerprint(conf));
+        e = entries.get(idx);
+        if (e != null && e.matches(latCell, longCell, heightCell, epochDay, loc,
+                                   conf)) {
+            if (e.times == null) {
+                misses.increment();
+                return prayer.get().getPrayerTimes(loc, conf, epochDay, times);
+            }
+            hits.increment();
+            System.arraycopy(e.times, 0, times, 0, Prayer.NB_PRAYERS);
+            return e.extreme;
+        }
+
+        misses.increment();
+        c = center.get();
+        c.set(loc);
+        c.degreeLat = Math.max(-90, Math.min(90, (latCell + 0.5) * latStep));
+        c.degreeLong = (longCell + 0.5) * longStep;
+        if (heightStep > 0)
+            c.seaLevel = (heightCell + 0.5) * heightStep;
+
+        extreme = prayer.get().getPrayerTimes(c, conf, epochDay, times);
+        if (e != null)
+            evictions.increment();
+        entries.set(idx, new Entry(latCell, longCell, heightCell, epochDay, loc,
+                conf, extreme == 0 ? times.clone() : null, extreme));
+        if (extreme != 0)
+            extreme = prayer.get().getPrayerTimes(loc, conf, epochDay, times);
+        return extreme;
+    }
+
+    /* Width in degrees of the longitude cells of the row "latCell", so that
+       the cells are about as wide as high */
+    private double getLongStep(int latCell)
+    {
+        double cosLat = Math.cos(Math.toRadians((latCell + 0.5) * latStep));
+
+        return Math.min(360, latStep / Math.max(cosLat, MIN_COS_LAT));
+    }
+
+    private int getIndex(int latCell, int longCell, int heightCell, long epochDay,
+                         long fingerprint)
+    {
+        long h = fingerprint;
+
+        h = h * 31 + latCell;
+        h = h * 31 + longCell;
+        h = h * 31 + heightCell;
+        h = h * 31 + epochDay;
+        h *= 0x9e3779b97f4a7c15L;
+        return (int)(h >>> 32) & mask;
+    }
+
+    /* Returns true if "a" and "b" have the same values used by
+       Prayer.getPrayerTimes. The values that have no effect on these times
+       are left out (the Imsaak values, the offsets when not enabled, the
+       nearest latitude when not used by the extreme method). */
+    public static boolean isSameTimes(Method a, Method b)
+    {
+        int i;
+
+        if (a.fajrAng != b.fajrAng || a.ishaaAng != b.ishaaAng ||
+                a.fajrInv != b.fajrInv || a.ishaaInv != b.ishaaInv ||
+                a.round != b.round || a.mathhab != b.mathhab ||
+                a.extreme != b.extreme || a.precision != b.precision ||
+                (a.offset == 1) != (b.offset == 1))
+            return false;
+        if (a.extreme >= 1 && a.extreme <= 3 && a.nearestLat != b.nearestLat)
+            return false;
+        if (a.offset == 1)
+            for (i = 0; i < Prayer.NB_PRAYERS; i++)
+                if (a.offList[i] != b.offList[i])
+                    return false;
+        return true;
+    }
+
+    /* Returns a hash of the values of "conf" compared by isSameTimes, so
+       that methods giving the same times have the same fingerprint. It only
+       picks the slot of an entry: two methods with the same fingerprint are
+       still told apart by isSameTimes. */
+    public static long getFingerprint(Method conf)
+    {
+        int i;
+        long h = 1;
+
+        h = mix(h, Double.doubleToLongBits(conf.fajrAng));
+        h = mix(h, Double.doubleToLongBits(conf.ishaaAng));
+        h = mix(h, conf.fajrInv);
+        h = mix(h, conf.ishaaInv);
+        h = mix(h, conf.round);
+        h = mix(h, conf.mathhab);
+        h = mix(h, conf.extreme);
+        h = mix(h, conf.precision);
+        if (conf.extreme >= 1 && conf.extreme <= 3)
+            h = mix(h, Double.doubleToLongBits(conf.nearestLat));
+        if (conf.offset == 1)
+            for (i = 0; i < Prayer.NB_PRAYERS; i++)
+                h = mix(h, Double.doubleToLongBits(conf.offList[i]));
+        return h;
+    }
+
+    private static long mix(long h, long v)
+    {
+        h ^= v;
+        h *= 0x100000001b3L;
+        return h ^ (h >>> 29);
+    }
+}
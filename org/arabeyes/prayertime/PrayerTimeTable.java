@@ -0,0 +1,50 @@
+/************************************************************************
+ * ------------
+ * Description:
+ * ------------
+ *  Copyright (c) 2003-2006, 2009 Arabeyes, Thamer Mahmoud
+ *  Copyright (c) 2015, Djalel Chefrour conversion to Java.
+ *
+ *  A full featured Muslim Prayer Times calculator
+ *
+ *  Most of the astronomical values and formulas used in this file are based
+ *  upon a subset of the VSOP87 planetary theory developed by Jean Meeus. Page
+ *  and formula numbers in-line below are references to his book: Astronomical
+ *  Algorithms. Willmann-Bell, second edition, 1998.
+ *
+ * (www.arabeyes.org - under LGPL license - see COPYING file)
+ ************************************************************************/
+
+package org.arabeyes.prayertime;
+
+/* This class holds the prayer times of consecutive days in columns of
+   primitive values. The first index is the prayer and the second one is the
+   day offset from the first date of the table:
+    - hour[0][0]      is the first day's Fajr hours
+    - minute[5][1]    is the second day's Ishaa minutes
+    - ... and so on. */
+public class PrayerTimeTable {
+    public int nbDays;          /* Number of days in the table */
+    public int[][] hour;        /* prayer time hours */
+    public int[][] minute;      /* prayer time minutes */
+    public int[][] second;      /* prayer time seconds */
+    public int[][] isExtreme;   /* Extreme calculation status (see PrayerTime) */
+
+    public PrayerTimeTable(int nbDays)
+    {
+        this.nbDays = nbDays;
+        hour = new int[Prayer.NB_PRAYERS][nbDays];
+        minute = new int[Prayer.NB_PRAYERS][nbDays];
+        second = new int[Prayer.NB_PRAYERS][nbDays];
+        isExtreme = new int[Prayer.NB_PRAYERS][nbDays];
+    }
+
+    /* Returns the prayer time of one day as a PrayerTime object */
+    public PrayerTime getPrayerTime(int prayer, int day)
+    {
+        PrayerTime pt = new PrayerTime(hour[prayer][day], minute[prayer][day],
+                second[prayer][day]);
+        pt.isExtreme = isExtreme[prayer][day];
+        return pt;
+    }
+}
@@ -0,0 +1,88 @@
+/************************************************************************
+ * ------------
+ * Description:
+ * ------------
+ *  Copyright (c) 2003-2006, 2009 Arabeyes, Thamer Mahmoud
+ *  Copyright (c) 2015, Djalel Chefrour conversion to Java.
+ *
+ *  A full featured Muslim Prayer Times calculator
+ *
+ *  Most of the astronomical values and formulas used in this file are based
+ *  upon a subset of the VSOP87 planetary theory developed by Jean Meeus. Page
+ *  and formula numbers in-line below are references to his book: Astronomical
+ *  Algorithms. Willmann-Bell, second edition, 1998.
+ *
+ * (www.arabeyes.org - under LGPL license - see COPYING file)
+ ************************************************************************/
+package org.arabeyes.prayertime;
+
+/* A location with the values that only depend on it computed once: the
+   sine and cosine of the latitude, the geocentric position of the observer
+   used for the parallax, and the pressure and temperature factor of the
+   refraction. Prayer and AstroDay use these values instead of computing
+   them for each day (and several times per day).
+
+   The values are checked against the latitude, height, pressure and
+   temperature they were computed for, so a changed location is still
+   correct but computed as a plain PTLocation until "prepare" is called
+   again. */
+public final class PreparedLocation extends PTLocation {
+    double sinLat;              /* sine of the latitude */
+    double cosLat;              /* cosine of the latitude */
+    double tpSin;               /* rho sin(phi') (p. 82) */
+    double tpCos;               /* rho cos(phi') (p. 82) */
+    double refraction;          /* pressure and temperature factor (p. 107) */
+
+    /* Values used by "prepare" */
+    private double preparedLat;
+    private double preparedSeaLevel;
+    private double preparedPressure;
+    private double preparedTemperature;
+
+    public PreparedLocation(double dLa, double dLo, double gmt, int dst,
+                            double seaL, double pressure, double temp)
+    {
+        super(dLa, dLo, gmt, dst, seaL, pressure, temp);
+        prepare();
+    }
+
+    public PreparedLocation(PTLocation loc)
+    {
+        super(loc);
+        prepare();
+    }
+
+    /* Computes the values again after a change of the location */
+    public void prepare()
+    {
+        double rLat = Angle.DEG_TO_RAD(degreeLat);
+        double tU = Math.atan (0.99664719 * Math.tan(rLat));
+
+        sinLat = Math.sin(rLat);
+        cosLat = Math.cos(rLat);
+        tpSin = 0.99664719 * Math.sin(tU) + (seaLevel/Angle.EARTH_RADIUS) * sinLat;
+        tpCos = Math.cos(tU) + (seaLevel/Angle.EARTH_RADIUS) * cosLat;
+        refraction = (pressure/1010.0) * (283/(273 + temperature));
+
+        preparedLat = degreeLat;
+        preparedSeaLevel = seaLevel;
+        preparedPressure = pressure;
+        preparedTemperature = temperature;
+    }
+
+    /* Returns true if the values are those of the current location */
+    boolean isPrepared()
+    {
+        return preparedLat == degreeLat && preparedSeaLevel == seaLevel &&
+            preparedPressure == pressure && preparedTemperature == temperature;
+    }
+
+    /* Returns "loc" if it is a PreparedLocation with up to date values, or
+       null */
+    static PreparedLocation getPrepared(PTLocation loc)
+    {
+        if (loc instanceof PreparedLocation && ((PreparedLocation)loc).isPrepared())
+            return (PreparedLocation)loc;
+        return null;
+    }
+}
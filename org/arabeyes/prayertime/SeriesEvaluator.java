@@ -0,0 +1,96 @@
+/************************************************************************
+ * ------------
+ * Description:
+ * ------------
+ *  Copyright (c) 2003-2006, 2009 Arabeyes, Thamer Mahmoud
+ *  Copyright (c) 2015, Djalel Chefrour conversion to Java.
+ *
+ *  A full featured Muslim Prayer Times calculator
+ *
+ *  Most of the astronomical values and formulas used in this file are based
+ *  upon a subset of the VSOP87 planetary theory developed by Jean Meeus. Page
+ *  and formula numbers in-line below are references to his book: Astronomical
+ *  Algorithms. Willmann-Bell, second edition, 1998.
+ *
+ * (www.arabeyes.org - under LGPL license - see COPYING file)
+ ************************************************************************/
+
+package org.arabeyes.prayertime;
+
+/* Evaluates the periodic series of AstroDay.computeAstroDay. Terms are given
+   as columns (one array per coefficient) so they can be loaded as vectors.
+
+   This class is the scalar path. VectorSeriesEvaluator uses the incubating
+   Java Vector API (JDK 16 and later). It is kept out of this source tree, in
+   the "vector" source root, so the library builds without the module. It is
+   only used when it has been compiled next to the library classes and the
+   jdk.incubator.vector module is available at runtime:
+
+   $ javac --add-modules jdk.incubator.vector -cp . -d . vector/org/arabeyes/prayertime/VectorSeriesEvaluator.java
+   $ java --add-modules jdk.incubator.vector ...
+
+   Setting the system property org.arabeyes.prayertime.vector to false
+   forces the scalar path. */
+class SeriesEvaluator {
+    private static final SeriesEvaluator DEFAULT = load();
+
+    static SeriesEvaluator getDefault()
+    {
+        return DEFAULT;
+    }
+
+    private static SeriesEvaluator load()
+    {
+        if (Boolean.parseBoolean(System.getProperty("org.arabeyes.prayertime.vector", "true"))) {
+            try {
+                return (SeriesEvaluator) Class.forName(
+                        "org.arabeyes.prayertime.VectorSeriesEvaluator")
+                    .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                /* Not compiled, or module not available: use the scalar path */
+            }
+        }
+        return new SeriesEvaluator();
+    }
+
+    /* Returns the name of the evaluator */
+    String getName()
+    {
+        return "scalar";
+    }
+
+    /* Returns the sum of a[j] * cos(b[j] + c[j] * x) for all terms */
+    double cosSum(double[] a, double[] b, double[] c, double x)
+    {
+        int j;
+        double sum = 0;
+
+        for (j = 0; j < a.length; j++)
+            sum += a[j] * Math.cos(b[j] + c[j] * x);
+        return sum;
+    }
+
+    /* Nutation terms (p. 144-6). The argument of term j is D * k[0][j] +
+       M * k[1][j] + M1 * k[2][j] + F * k[3][j] + O * k[4][j] (degrees).
+       Returns the sum of (a[j] + T * b[j]) * sin() (or cos() when "sine"
+       is false) of that argument. */
+    double nutation(double[][] k, double[] a, double[] b, double D, double M,
+                    double M1, double F, double O, double T, boolean sine)
+    {
+        int j;
+        double arg, sum = 0;
+
+        for (j = 0; j < a.length; j++) {
+            arg  = D  * k[0][j];
+            arg += M  * k[1][j];
+            arg += M1 * k[2][j];
+            arg += F  * k[3][j];
+            arg += O  * k[4][j];
+            if (sine)
+                sum += (a[j] + T*b[j])*Math.sin(Angle.DEG_TO_RAD(arg));
+            else
+                sum += (a[j] + T*b[j])*Math.cos(Angle.DEG_TO_RAD(arg));
+        }
+        return sum;
+    }
+}
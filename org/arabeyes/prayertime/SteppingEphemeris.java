@@ -0,0 +1,267 @@
+/************************************************************************
+ * ------------
+ * Description:
+ * ------------
+ *  Copyright (c) 2003-2006, 2009 Arabeyes, Thamer Mahmoud
+ *  Copyright (c) 2015, Djalel Chefrour conversion to Java.
+ *
+ *  A full featured Muslim Prayer Times calculator
+ *
+ *  Most of the astronomical values and formulas used in this file are based
+ *  upon a subset of the VSOP87 planetary theory developed by Jean Meeus. Page
+ *  and formula numbers in-line below are references to his book: Astronomical
+ *  Algorithms. Willmann-Bell, second edition, 1998.
+ *
+ * (www.arabeyes.org - under LGPL license - see COPYING file)
+ ************************************************************************/
+
+package org.arabeyes.prayertime;
+
+import java.util.Arrays;
+
+/* VSOP87 geocentric values of the Sun for consecutive days.
+
+   Each term of the VSOP87 series is A * cos(B + C * JM), and JM advances by
+   1/365250 every day. When a series is evaluated one day after the previous
+   time, the (cos, sin) pair of each term is rotated by the constant angle
+   C / 365250 instead of calling Math.cos again. The pairs are recomputed
+   directly (anchored) every "anchorDays" days, and on any other step, so
+   the rounding errors of the rotations cannot accumulate. Anchored days give
+   the exact AstroDay values.
+
+   The nutation arguments are integer combinations of the 5 fundamental
+   arguments D, M, M1, F and O (at most 3 times each). The (cos, sin) pair of
+   each term is the product of the powers of their 5 pairs, which only takes
+   10 calls to Math.cos/sin per day whatever the day, and does not drift.
+
+   A year of consecutive days mostly costs multiplications. The values stay
+   within 1e-7" of AstroDay over 200 years of consecutive days, whatever the
+   anchor interval (see getMaxDeviation). Use it with
+   Prayer.getPrayerTimesForRange, e.g. new Prayer(new SteppingEphemeris()).
+   Like Prayer, an instance must only be used by one thread at a time. */
+public final class SteppingEphemeris implements Ephemeris {
+    public static final int DEF_ANCHOR_DAYS = 64;
+
+    private static final double DAY = 1 / 365250.0;   /* JM step of one day */
+
+    /* Phasors of the terms of one VSOP87 series */
+    private static final class Terms {
+        final double[] rotCos, rotSin;
+        final double[] cos, sin;
+        double x;
+        int steps = -1;         /* days since the last anchor, -1 if none */
+
+        Terms(double[] c)
+        {
+            int j;
+
+            rotCos = new double[c.length];
+            rotSin = new double[c.length];
+            cos = new double[c.length];
+            sin = new double[c.length];
+            for (j = 0; j < c.length; j++) {
+                rotCos[j] = Math.cos(c[j] * DAY);
+                rotSin[j] = Math.sin(c[j] * DAY);
+            }
+        }
+    }
+
+    private final class Stepper extends SeriesEvaluator {
+        /* The series are always evaluated in the same order, so the terms of
+           the next one are usually in the next slot */
+        private double[][] keys = new double[16][];
+        private Terms[] terms = new Terms[16];
+        private int nbTerms, next;
+
+        /* Powers -3..3 of the phasors of D, M, M1, F and O (degrees), at
+           [7 * argument + 3 + power] */
+        private final double[] powCos = new double[5 * 7];
+        private final double[] powSin = new double[5 * 7];
+        private final double[] fund = new double[5];
+        /* Indexes in pow of the non zero powers of term j, from
+           nutPow[nutStart[j]] to nutPow[nutStart[j + 1] - 1] */
+        private int[] nutStart, nutPow;
+        private double[] nutCos, nutSin;
+        private double nutT = Double.NaN;
+
+        private Terms getTerms(double[] a, double[] c)
+        {
+            int j;
+            Terms t;
+
+            for (j = 0; j < nbTerms; j++) {
+                if (next >= nbTerms)
+                    next = 0;
+                if (keys[next] == a)
+                    return terms[next++];
+                next++;
+            }
+
+            if (nbTerms == keys.length) {
+                keys = Arrays.copyOf(keys, 2 * nbTerms);
+                terms = Arrays.copyOf(terms, 2 * nbTerms);
+            }
+            t = new Terms(c);
+            keys[nbTerms] = a;
+            terms[nbTerms++] = t;
+            next = nbTerms;
+            return t;
+        }
+
+        @Override
+        String getName()
+        {
+            return "stepping";
+        }
+
+        @Override
+        double cosSum(double[] a, double[] b, double[] c, double x)
+        {
+            int j;
+            double sum = 0, tc;
+            Terms t = getTerms(a, c);
+
+            if (t.steps < 0 || x != t.x) {
+                if (t.steps >= 0 && t.steps < anchorDays - 1
+                        && Math.abs(x - t.x - DAY) < 1e-9 * DAY) {
+                    for (j = 0; j < a.length; j++) {
+                        tc = t.cos[j];
+                        t.cos[j] = tc * t.rotCos[j] - t.sin[j] * t.rotSin[j];
+                        t.sin[j] = t.sin[j] * t.rotCos[j] + tc * t.rotSin[j];
+                    }
+                    t.steps++;
+                    steps++;
+                } else {
+                    for (j = 0; j < a.length; j++) {
+                        t.cos[j] = Math.cos(b[j] + c[j] * x);
+                        t.sin[j] = Math.sin(b[j] + c[j] * x);
+                    }
+                    t.steps = 0;
+                    anchors++;
+                }
+                t.x = x;
+            }
+
+            for (j = 0; j < a.length; j++)
+                sum += a[j] * t.cos[j];
+            return sum;
+        }
+
+        @Override
+        double nutation(double[][] k, double[] a, double[] b, double D, double M,
+                        double M1, double F, double O, double T, boolean sine)
+        {
+            int i, j, p, q;
+            double sum = 0, tc, cs, sn;
+
+            if (nutPow == null) {
+                nutStart = new int[a.length + 1];
+                nutPow = new int[5 * a.length];
+                for (j = 0, p = 0; j < a.length; j++) {
+                    nutStart[j] = p;
+                    for (i = 0; i < 5; i++)
+                        if (k[i][j] != 0)
+                            nutPow[p++] = 7 * i + 3 + (int)k[i][j];
+                }
+                nutStart[a.length] = p;
+                nutCos = new double[a.length];
+                nutSin = new double[a.length];
+            }
+
+            if (T != nutT || fund[0] != D) {
+                fund[0] = D;
+                fund[1] = M;
+                fund[2] = M1;
+                fund[3] = F;
+                fund[4] = O;
+                for (i = 0; i < 5; i++) {
+                    q = 7 * i + 3;
+                    cs = Math.cos(Angle.DEG_TO_RAD(fund[i]));
+                    sn = Math.sin(Angle.DEG_TO_RAD(fund[i]));
+                    powCos[q] = 1;
+                    powSin[q] = 0;
+                    for (p = 1; p <= 3; p++) {
+                        powCos[q + p] = powCos[q + p - 1] * cs - powSin[q + p - 1] * sn;
+                        powSin[q + p] = powSin[q + p - 1] * cs + powCos[q + p - 1] * sn;
+                        powCos[q - p] = powCos[q + p];
+                        powSin[q - p] = -powSin[q + p];
+                    }
+                }
+                for (j = 0; j < a.length; j++) {
+                    cs = 1;
+                    sn = 0;
+                    for (p = nutStart[j]; p < nutStart[j + 1]; p++) {
+                        q = nutPow[p];
+                        tc = cs;
+                        cs = tc * powCos[q] - sn * powSin[q];
+                        sn = sn * powCos[q] + tc * powSin[q];
+                    }
+                    nutCos[j] = cs;
+                    nutSin[j] = sn;
+                }
+                nutT = T;
+            }
+
+            for (j = 0; j < a.length; j++)
+                sum += (a[j] + T*b[j]) * (sine ? nutSin[j] : nutCos[j]);
+            return sum;
+        }
+    }
+
+    private final int anchorDays;
+    private final AstroDay astroDay;
+    private long steps, anchors;
+
+    public SteppingEphemeris()
+    {
+        this(DEF_ANCHOR_DAYS);
+    }
+
+    /* The phasors are recomputed at least every "anchorDays" days (1 means
+       every day, like AstroDay) */
+    public SteppingEphemeris(int anchorDays)
+    {
+        this.anchorDays = Math.max(anchorDays, 1);
+        this.astroDay = new AstroDay(new Stepper());
+    }
+
+    /* Number of series evaluated by rotating the phasors */
+    public long getSteps()
+    {
+        return steps;
+    }
+
+    /* Number of series evaluated directly */
+    public long getAnchors()
+    {
+        return anchors;
+    }
+
+    public void computeAstroDay(double JD, AstroValues astro, int i)
+    {
+        astroDay.computeAstroDay(JD, astro, i);
+    }
+
+    /* Computes "nbDays" consecutive days from "startJD" and returns the
+     * maximum deviation from "reference" in arc seconds, as {ra, dec, sid} */
+    public double[] getMaxDeviation(Ephemeris reference, double startJD, int nbDays)
+    {
+        int k;
+        double[] max = new double[3];
+        AstroValues a = new AstroValues();
+        AstroValues b = new AstroValues();
+
+        for (k = 0; k < nbDays; k++)
+        {
+            reference.computeAstroDay(startJD + k, a, 0);
+            computeAstroDay(startJD + k, b, 0);
+
+            max[0] = Math.max(max[0], 3600 * Math.abs(
+                        DayInterpolator.unwrap(b.ra[0], a.ra[0]) - a.ra[0]));
+            max[1] = Math.max(max[1], 3600 * Angle.RAD_TO_DEG(Math.abs(b.dec[0] - a.dec[0])));
+            max[2] = Math.max(max[2], 3600 * Math.abs(
+                        DayInterpolator.unwrap(b.sid[0], a.sid[0]) - a.sid[0]));
+        }
+        return max;
+    }
+}
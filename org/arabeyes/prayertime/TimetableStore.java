@@ -0,0 +1,282 @@
+/************************************************************************
+ * ------------
+ * Description:
+ * ------------
+ *  Copyright (c) 2003-2006, 2009 Arabeyes, Thamer Mahmoud
+ *  Copyright (c) 2015, Djalel Chefrour conversion to Java.
+ *
+ *  A full featured Muslim Prayer Times calculator
+ *
+ *  Most of the astronomical values and formulas used in this file are based
+ *  upon a subset of the VSOP87 planetary theory developed by Jean Meeus. Page
+ *  and formula numbers in-line below are references to his book: Astronomical
+ *  Algorithms. Willmann-Bell, second edition, 1998.
+ *
+ * (www.arabeyes.org - under LGPL license - see COPYING file)
+ ************************************************************************/
+
+package org.arabeyes.prayertime;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.zip.CRC32;
+
+/* Year timetables of many locations kept outside of the Java heap, in direct
+   byte buffers, so that the heap and the garbage collection pauses do not
+   grow with the number of locations.
+
+   Each location has a fixed size record of 366 days (1 to 366, as in
+   Calendar.DAY_OF_YEAR) of 8 times: the six prayers, Imsaak and the next
+   day's Fajr. A time is stored with a fixed width:
+    - 3 bytes with seconds: the PackedTime value (seconds, INVALID, EXTREME)
+    - 2 bytes with minutes only, for rounded times (Method.round != 0):
+      minutes since midnight in bits 0-10, INVALID in bit 11 and EXTREME in
+      bit 12.
+   A lookup by (location, day of year) is a single offset computation. The
+   records are split over buffers of at most 1 GB.
+
+   The whole store can be saved to a file and loaded back in one go.
+
+   File format (big endian):
+     int    magic       0x50545453 ("PTTS")
+     int    version     1
+     int    nbLocations number of location records
+     int    width       bytes per time (2 or 3)
+     long   checksum    CRC32 of all the records
+     records of 366 days of 8 times */
+public final class TimetableStore {
+    public static final int NB_DAYS = 366;
+    public static final int NB_TIMES = 8;
+    public static final int IMSAAK = 6;       /* index of Imsaak */
+    public static final int NEXT_FAJR = 7;    /* index of the next day's Fajr */
+
+    private static final int MAGIC = 0x50545453;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 24;
+    private static final int MAX_BUFFER_SIZE = 1 << 30;
+
+    private static final int MINUTE_INVALID = 1 << 11;
+    private static final int MINUTE_EXTREME = 1 << 12;
+
+    private final int nbLocations;
+    private final int width;                /* bytes per time */
+    private final int recordSize;           /* bytes per location */
+    private final int locationsPerBuffer;
+    private final ByteBuffer[] buffers;
+
+    /* Allocates the records of "nbLocations" locations (0 to nbLocations-1)
+       with times in seconds if "seconds" is true, or in minutes */
+    public TimetableStore(int nbLocations, boolean seconds)
+    {
+        int i, n;
+
+        this.nbLocations = nbLocations;
+        this.width = seconds ? 3 : 2;
+        this.recordSize = NB_DAYS * NB_TIMES * width;
+        this.locationsPerBuffer = MAX_BUFFER_SIZE / recordSize;
+
+        n = (nbLocations + locationsPerBuffer - 1) / locationsPerBuffer;
+        buffers = new ByteBuffer[n];
+        for (i = 0; i < n; i++)
+            buffers[i] = ByteBuffer.allocateDirect(recordSize *
+                    Math.min(locationsPerBuffer, nbLocations - i * locationsPerBuffer));
+    }
+
+    public int getNbLocations()
+    {
+        return nbLocations;
+    }
+
+    public boolean hasSeconds()
+    {
+        return width == 3;
+    }
+
+    /* Returns the number of bytes used off the heap */
+    public long getSize()
+    {
+        return (long)nbLocations * recordSize;
+    }
+
+    /* Returns the time "time" (0 to NB_TIMES-1) of the day "dayOfYear" of the
+       location "id" as a PackedTime value */
+    public int get(int id, int dayOfYear, int time)
+    {
+        int off = getOffset(id, dayOfYear, time);
+        ByteBuffer buf = buffers[id / locationsPerBuffer];
+        int v;
+
+        if (width == 3)
+            return ((buf.get(off) & 0xff) << 16) | ((buf.get(off + 1) & 0xff) << 8)
+                | (buf.get(off + 2) & 0xff);
+
+        v = buf.getShort(off);
+        return (((v & MINUTE_INVALID) != 0) ? PackedTime.INVALID : (v & 0x7ff) * 60)
+            | (((v & MINUTE_EXTREME) != 0) ? PackedTime.EXTREME : 0);
+    }
+
+    /* Fills "times" with the NB_TIMES times of one day (see get) */
+    public void getDay(int id, int dayOfYear, int[] times)
+    {
+        int i;
+
+        for (i = 0; i < NB_TIMES; i++)
+            times[i] = get(id, dayOfYear, i);
+    }
+
+    /* Stores the PackedTime value "t". Stores in minutes can only hold times
+       without seconds. */
+    public void put(int id, int dayOfYear, int time, int t)
+    {
+        int off = getOffset(id, dayOfYear, time);
+        ByteBuffer buf = buffers[id / locationsPerBuffer];
+        int seconds = t & PackedTime.SECONDS_MASK;
+
+        if (width == 3) {
+            buf.put(off, (byte)(t >> 16));
+            buf.put(off + 1, (byte)(t >> 8));
+            buf.put(off + 2, (byte)t);
+            return;
+        }
+
+        if (PackedTime.isValid(t) && seconds % 60 != 0)
+            throw new IllegalArgumentException("time with seconds in a store in minutes");
+        buf.putShort(off, (short)((PackedTime.isValid(t) ? seconds / 60 : MINUTE_INVALID)
+                    | (PackedTime.isExtreme(t) ? MINUTE_EXTREME : 0)));
+    }
+
+    /* Computes and stores the timetable of the location "id" for "year"
+       with "prayer". Day 366 of a common year is stored as invalid. */
+    public void fill(int id, Prayer prayer, PTLocation loc, Method conf, int year)
+    {
+        int i, j, nbDays;
+        long firstDay = LocalDate.of(year, 1, 1).toEpochDay();
+        PackedTimeTable table;
+        PrayerTime imsaak;
+
+        nbDays = LocalDate.of(year, 1, 1).lengthOfYear();
+
+        table = prayer.getPackedTimesForRange(loc, conf,
+                LocalDate.ofEpochDay(firstDay), nbDays);
+
+        for (i = 0; i < nbDays; i++) {
+            for (j = 0; j < Prayer.NB_PRAYERS; j++)
+                put(id, i + 1, j, table.get(j, i));
+            if (i + 1 < nbDays)
+                put(id, i + 1, NEXT_FAJR, table.get(0, i + 1));
+        }
+
+        /* The next day's Fajr of December 31st uses the delta-t of "year"
+           (see Prayer.getNextDayFajr) */
+        put(id, nbDays, NEXT_FAJR, PackedTime.pack(prayer.getNextDayFajr(loc, conf,
+                        firstDay + nbDays - 1)));
+
+        /* Imsaak uses its own method (see Prayer.getImsaak) */
+        for (i = 0; i < nbDays; i++) {
+            imsaak = prayer.getImsaak(loc, conf, firstDay + i);
+            put(id, i + 1, IMSAAK, PackedTime.pack(imsaak));
+        }
+
+        for (i = nbDays; i < NB_DAYS; i++)
+            for (j = 0; j < NB_TIMES; j++)
+                put(id, i + 1, j, PackedTime.INVALID);
+    }
+
+    /* Writes the whole store to the file "fileName" */
+    public void save(String fileName) throws IOException
+    {
+        int i;
+        CRC32 crc = new CRC32();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+        for (i = 0; i < buffers.length; i++)
+            crc.update(getData(buffers[i]));
+
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.putInt(nbLocations);
+        header.putInt(width);
+        header.putLong(crc.getValue());
+        header.flip();
+
+        try (FileChannel ch = FileChannel.open(Paths.get(fileName),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(ch, header);
+            for (i = 0; i < buffers.length; i++)
+                write(ch, getData(buffers[i]));
+        }
+    }
+
+    /* Reads a store written by "save" from the file "fileName" */
+    public static TimetableStore load(String fileName) throws IOException
+    {
+        int i;
+        long size;
+        TimetableStore store;
+        CRC32 crc = new CRC32();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+        try (FileChannel ch = FileChannel.open(Paths.get(fileName),
+                    StandardOpenOption.READ)) {
+            size = ch.size();
+            read(ch, header, fileName);
+
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION ||
+                    header.getInt(8) < 0 || (header.getInt(12) != 2 &&
+                        header.getInt(12) != 3))
+                throw new IOException(fileName + ": bad timetable file header");
+
+            store = new TimetableStore(header.getInt(8), header.getInt(12) == 3);
+            if (size != HEADER_SIZE + store.getSize())
+                throw new IOException(fileName + ": bad timetable file size");
+
+            for (i = 0; i < store.buffers.length; i++) {
+                read(ch, getData(store.buffers[i]), fileName);
+                crc.update(getData(store.buffers[i]));
+            }
+        }
+
+        if (crc.getValue() != header.getLong(16))
+            throw new IOException(fileName + ": bad timetable file checksum");
+        return store;
+    }
+
+    /* Returns a view of all the bytes of "buf" */
+    private static ByteBuffer getData(ByteBuffer buf)
+    {
+        ByteBuffer data = buf.duplicate();
+
+        data.clear();
+        return data;
+    }
+
+    private int getOffset(int id, int dayOfYear, int time)
+    {
+        if (id < 0 || id >= nbLocations || dayOfYear < 1 || dayOfYear > NB_DAYS ||
+                time < 0 || time >= NB_TIMES)
+            throw new IndexOutOfBoundsException("location " + id + ", day "
+                    + dayOfYear + ", time " + time);
+
+        return (id % locationsPerBuffer) * recordSize
+            + ((dayOfYear - 1) * NB_TIMES + time) * width;
+    }
+
+    private static void write(FileChannel ch, ByteBuffer buf) throws IOException
+    {
+        while (buf.hasRemaining())
+            ch.write(buf);
+    }
+
+    private static void read(FileChannel ch, ByteBuffer buf, String fileName)
+        throws IOException
+    {
+        while (buf.hasRemaining())
+            if (ch.read(buf) < 0)
+                throw new IOException(fileName + ": truncated timetable file");
+    }
+}
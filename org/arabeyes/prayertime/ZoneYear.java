@@ -0,0 +1,144 @@
+/************************************************************************
+ * ------------
+ * Description:
+ * ------------
+ *  Copyright (c) 2003-2006, 2009 Arabeyes, Thamer Mahmoud
+ *  Copyright (c) 2015, Djalel Chefrour conversion to Java.
+ *
+ *  A full featured Muslim Prayer Times calculator
+ *
+ *  Most of the astronomical values and formulas used in this file are based
+ *  upon a subset of the VSOP87 planetary theory developed by Jean Meeus. Page
+ *  and formula numbers in-line below are references to his book: Astronomical
+ *  Algorithms. Willmann-Bell, second edition, 1998.
+ *
+ * (www.arabeyes.org - under LGPL license - see COPYING file)
+ ************************************************************************/
+
+package org.arabeyes.prayertime;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+
+/* The GMT difference and daylight saving time of each day of one year in a
+   time zone, as used in PTLocation (gmtDiff and dst).
+
+   The offsets are resolved once by walking the transitions of the zone over
+   the year. Each day only holds the index of one of the few distinct
+   offsets of the year. The offset of a day is the one in effect at local
+   noon, so the usual night-time transitions apply to the whole day. A
+   daylight saving time that is not a positive whole number of hours (e.g.
+   30 minutes) cannot be given in PTLocation.dst, so it is added to the GMT
+   difference instead. */
+public final class ZoneYear {
+    private static final int NOON = 12 * 3600;
+
+    private final ZoneId zone;
+    private final int year;
+    private final long firstDay;        /* epoch day of January 1st */
+    private final byte[] days;          /* offset index of each day */
+    private double[] gmtDiff;           /* GMT difference by offset index */
+    private int[] dst;                  /* DST by offset index */
+    private int nbOffsets;
+
+    public ZoneYear(ZoneId zone, int year)
+    {
+        int i, std, total;
+        long noon;
+        Instant t;
+        ZoneRules rules = zone.getRules();
+        ZoneOffsetTransition next;
+
+        this.zone = zone;
+        this.year = year;
+        this.firstDay = LocalDate.of(year, 1, 1).toEpochDay();
+        this.days = new byte[(int)(LocalDate.of(year + 1, 1, 1).toEpochDay() - firstDay)];
+        this.gmtDiff = new double[2];
+        this.dst = new int[2];
+
+        /* Offsets at the first noon of the year */
+        t = LocalDate.of(year, 1, 1).atTime(12, 0).atZone(zone).toInstant();
+        std = rules.getStandardOffset(t).getTotalSeconds();
+        total = rules.getOffset(t).getTotalSeconds();
+        next = rules.nextTransition(t);
+
+        for (i = 0; i < days.length; i++)
+        {
+            noon = (firstDay + i) * 86400 + NOON - total;
+
+            /* Apply the transitions that happened before this noon */
+            while (next != null && next.getInstant().getEpochSecond() <= noon)
+            {
+                t = next.getInstant();
+                std = rules.getStandardOffset(t).getTotalSeconds();
+                total = next.getOffsetAfter().getTotalSeconds();
+                next = rules.nextTransition(t);
+                noon = (firstDay + i) * 86400 + NOON - total;
+            }
+            days[i] = getOffsetIndex(std, total);
+        }
+    }
+
+    private byte getOffsetIndex(int std, int total)
+    {
+        int i, daylight = total - std;
+        double gmt = std / 3600.0;
+
+        if (daylight < 0 || daylight % 3600 != 0) {
+            gmt = total / 3600.0;
+            daylight = 0;
+        }
+
+        for (i = 0; i < nbOffsets; i++)
+            if (gmtDiff[i] == gmt && dst[i] == daylight / 3600)
+                return (byte)i;
+
+        if (nbOffsets == gmtDiff.length) {
+            gmtDiff = Arrays.copyOf(gmtDiff, 2 * nbOffsets);
+            dst = Arrays.copyOf(dst, 2 * nbOffsets);
+        }
+        gmtDiff[nbOffsets] = gmt;
+        dst[nbOffsets] = daylight / 3600;
+        return (byte)nbOffsets++;
+    }
+
+    public ZoneId getZone()
+    {
+        return zone;
+    }
+
+    public int getYear()
+    {
+        return year;
+    }
+
+    public int getNbDays()
+    {
+        return days.length;
+    }
+
+    /* Returns true if the day "epochDay" (see LocalDate.toEpochDay) is in
+       this year */
+    public boolean contains(long epochDay)
+    {
+        return epochDay >= firstDay && epochDay < firstDay + days.length;
+    }
+
+    /* Returns the GMT difference (in hours) of the day "epochDay" of this
+       year */
+    public double getGmtDiff(long epochDay)
+    {
+        return gmtDiff[days[(int)(epochDay - firstDay)]];
+    }
+
+    /* Returns the daylight saving time (in hours) of the day "epochDay" of
+       this year */
+    public int getDst(long epochDay)
+    {
+        return dst[days[(int)(epochDay - firstDay)]];
+    }
+}
@@ -0,0 +1,181 @@
+/************************************************************************
+ * ------------
+ * Description:
+ * ------------
+ *  Copyright (c) 2003-2006, 2009 Arabeyes, Thamer Mahmoud
+ *  Copyright (c) 2015, Djalel Chefrour conversion to Java.
+ *
+ *  A full featured Muslim Prayer Times calculator
+ *
+ *  Most of the astronomical values and formulas used in this file are based
+ *  upon a subset of the VSOP87 planetary theory developed by Jean Meeus. Page
+ *  and formula numbers in-line below are references to his book: Astronomical
+ *  Algorithms. Willmann-Bell, second edition, 1998.
+ *
+ * (www.arabeyes.org - under LGPL license - see COPYING file)
+ ************************************************************************/
+
+package org.arabeyes.prayertime;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/* SeriesEvaluator using the Java Vector API, with its own vector cosine (see
+   SeriesEvaluator to compile and enable it).
+
+   The argument is reduced to [-PI, PI] with 2 PI in 3 parts (exact for the
+   arguments of the series, below 2^20 * 2 PI), then the Taylor polynomial of
+   degree 26 of the cosine is used (error below 3e-16 at PI). Sines are
+   cosines of x - PI/2 (PI/2 in 2 parts). A single polynomial avoids the quadrant selection of
+   the usual kernels, which keeps the loops small enough for C2 to compile
+   them without boxing the vectors. The results are within a few ulp of
+   Math.cos/sin, so not bit for bit those of the scalar path: the difference
+   on the Sun position is below TOLERANCE (1e-6 arc seconds), which main
+   checks.
+
+   The terms that do not fill a whole vector are added with the scalar
+   path. */
+final class VectorSeriesEvaluator extends SeriesEvaluator {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    private static final DoubleVector ONE_OVER_TWO_PI = v(0.15915494309189535);
+    private static final DoubleVector TWO_PI_1  = v(6.28318530693650245667e+00);
+    private static final DoubleVector TWO_PI_2  = v(2.43084020252158639064e-10);
+    private static final DoubleVector TWO_PI_2T = v(8.08906499518380253162e-21);
+    private static final DoubleVector PIO2_1    = v(1.57079632673412561417e+00);
+    private static final DoubleVector PIO2_2    = v(6.07710050650619224932e-11);
+    /* Adding then subtracting this rounds to the nearest integer */
+    private static final DoubleVector ROUND = v(6755399441055744.0);   /* 1.5 * 2^52 */
+    private static final DoubleVector DEG_TO_RAD = v(Math.PI/180.0);
+
+    /* (-1)^k / (2k)! */
+    private static final DoubleVector C0  = v( 1.0);
+    private static final DoubleVector C1  = v(-5.00000000000000000000e-01);
+    private static final DoubleVector C2  = v( 4.16666666666666643537e-02);
+    private static final DoubleVector C3  = v(-1.38888888888888894189e-03);
+    private static final DoubleVector C4  = v( 2.48015873015873015658e-05);
+    private static final DoubleVector C5  = v(-2.75573192239858882758e-07);
+    private static final DoubleVector C6  = v( 2.08767569878681001866e-09);
+    private static final DoubleVector C7  = v(-1.14707455977297245073e-11);
+    private static final DoubleVector C8  = v( 4.77947733238738525345e-14);
+    private static final DoubleVector C9  = v(-1.56192069685862252711e-16);
+    private static final DoubleVector C10 = v( 4.11031762331216484407e-19);
+    private static final DoubleVector C11 = v(-8.89679139245057407789e-22);
+    private static final DoubleVector C12 = v( 1.61173757109611838590e-24);
+    private static final DoubleVector C13 = v(-2.47959626322479758961e-27);
+
+    private static DoubleVector v(double x)
+    {
+        return DoubleVector.broadcast(SPECIES, x);
+    }
+
+    @Override
+    String getName()
+    {
+        return "vector" + SPECIES.length();
+    }
+
+    @Override
+    double cosSum(double[] a, double[] b, double[] c, double x)
+    {
+        int j;
+        int upper = SPECIES.loopBound(a.length);
+        DoubleVector vx = v(x);
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        double sum;
+
+        for (j = 0; j < upper; j += SPECIES.length())
+            acc = acc.add(DoubleVector.fromArray(SPECIES, a, j).mul(
+                        cos(DoubleVector.fromArray(SPECIES, c, j).mul(vx)
+                            .add(DoubleVector.fromArray(SPECIES, b, j)))));
+        sum = acc.reduceLanes(VectorOperators.ADD);
+
+        for (; j < a.length; j++)
+            sum += a[j] * Math.cos(b[j] + c[j] * x);
+        return sum;
+    }
+
+    @Override
+    double nutation(double[][] k, double[] a, double[] b, double D, double M,
+                    double M1, double F, double O, double T, boolean sine)
+    {
+        int j;
+        int upper = SPECIES.loopBound(a.length);
+        DoubleVector vt = v(T);
+        DoubleVector vd = v(D), vm = v(M), vm1 = v(M1), vf = v(F), vo = v(O);
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        double arg, sum;
+
+        for (j = 0; j < upper; j += SPECIES.length()) {
+            DoubleVector x = DoubleVector.fromArray(SPECIES, k[0], j).mul(vd)
+                .add(DoubleVector.fromArray(SPECIES, k[1], j).mul(vm))
+                .add(DoubleVector.fromArray(SPECIES, k[2], j).mul(vm1))
+                .add(DoubleVector.fromArray(SPECIES, k[3], j).mul(vf))
+                .add(DoubleVector.fromArray(SPECIES, k[4], j).mul(vo))
+                .mul(DEG_TO_RAD);
+            if (sine)
+                x = x.sub(PIO2_1).sub(PIO2_2);
+            acc = acc.add(DoubleVector.fromArray(SPECIES, b, j).mul(vt)
+                    .add(DoubleVector.fromArray(SPECIES, a, j)).mul(cos(x)));
+        }
+        sum = acc.reduceLanes(VectorOperators.ADD);
+
+        for (; j < a.length; j++) {
+            arg  = D  * k[0][j];
+            arg += M  * k[1][j];
+            arg += M1 * k[2][j];
+            arg += F  * k[3][j];
+            arg += O  * k[4][j];
+            if (sine)
+                sum += (a[j] + T*b[j])*Math.sin(Angle.DEG_TO_RAD(arg));
+            else
+                sum += (a[j] + T*b[j])*Math.cos(Angle.DEG_TO_RAD(arg));
+        }
+        return sum;
+    }
+
+    private static DoubleVector cos(DoubleVector x)
+    {
+        DoubleVector n = x.mul(ONE_OVER_TWO_PI).add(ROUND).sub(ROUND);
+        DoubleVector r = x.sub(n.mul(TWO_PI_1)).sub(n.mul(TWO_PI_2)).sub(n.mul(TWO_PI_2T));
+        DoubleVector z = r.mul(r);
+
+        return z.mul(C13).add(C12).mul(z).add(C11).mul(z).add(C10).mul(z).add(C9)
+            .mul(z).add(C8).mul(z).add(C7).mul(z).add(C6).mul(z).add(C5)
+            .mul(z).add(C4).mul(z).add(C3).mul(z).add(C2).mul(z).add(C1)
+            .mul(z).add(C0);
+    }
+
+    /* Largest difference allowed with the scalar path, in arc seconds */
+    private static final double TOLERANCE = 1e-6;
+
+    /* Checks the difference with the scalar path on the Sun position of
+       every day from 1900 to 2100. Prints the largest ones (arc seconds)
+       and exits with status 1 if one is above TOLERANCE. */
+    public static void main(String[] args)
+    {
+        AstroDay scalar = new AstroDay(new SeriesEvaluator());
+        AstroDay vector = new AstroDay(new VectorSeriesEvaluator());
+        AstroValues a = new AstroValues();
+        AstroValues b = new AstroValues();
+        double jd, ra = 0, dec = 0, sid = 0;
+        boolean ok;
+
+        for (jd = AstroDay.getJulianDay(1900, 1, 1, 0);
+                jd < AstroDay.getJulianDay(2100, 1, 1, 0); jd++) {
+            scalar.computeAstroDay(jd, a, 0);
+            vector.computeAstroDay(jd, b, 0);
+            ra = Math.max(ra, Math.abs(a.ra[0] - b.ra[0]) * 3600);
+            dec = Math.max(dec, Math.abs(Angle.RAD_TO_DEG(a.dec[0] - b.dec[0])) * 3600);
+            sid = Math.max(sid, Math.abs(a.sid[0] - b.sid[0]) * 3600);
+        }
+        /* !(x <= TOLERANCE) also catches NaN */
+        ok = ra <= TOLERANCE && dec <= TOLERANCE && sid <= TOLERANCE;
+        System.out.printf("%s: ra %.3g\" dec %.3g\" sid %.3g\" (tolerance %.0e\") %s\n",
+                new VectorSeriesEvaluator().getName(), ra, dec, sid, TOLERANCE,
+                ok ? "OK" : "FAILED");
+        if (!ok)
+            System.exit(1);
+    }
+}